@@ -29,10 +29,7 @@ import de.fosd.jdime.matcher.matching.Matching;
 import de.fosd.jdime.operations.MergeOperation;
 import de.fosd.jdime.stats.StatisticsInterface;
 import de.fosd.jdime.strdump.DumpMode;
-import org.apache.commons.codec.binary.Hex;
-import org.apache.commons.codec.digest.DigestUtils;
 
-import java.security.MessageDigest;
 import java.util.*;
 import java.util.Map.Entry;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -88,9 +85,9 @@ public abstract class Artifact<T extends Artifact<T>> implements Comparable<T>,
     protected HashMap<String, T> variants;
 
     /**
-     * Map to store matches.
+     * Stores the matches, <code>null</code> until the first <code>Matching</code> is added.
      */
-    protected Map<Revision, Matching<T>> matches;
+    private MatchingStore<T> matches;
 
     /**
      * Whether the artifact has been already merged.
@@ -112,8 +109,27 @@ public abstract class Artifact<T extends Artifact<T>> implements Comparable<T>,
      */
     private int number;
 
-    private boolean hashValid;
-    private String hash;
+    /**
+     * The cached result of {@link #getTreeHash()}, <code>null</code> if it is not valid.
+     */
+    private TreeHash hash;
+
+    /**
+     * The cached results of {@link #getSubtreeSize()} and {@link #getMaxDepth()}, -1 if they are not valid.
+     */
+    private int subtreeSize;
+    private int maxDepth;
+
+    /**
+     * The cached structural properties of the tree rooted in this <code>Artifact</code> as a combination of the
+     * <code>FLAG_*</code> bits, 0 if they are not valid.
+     */
+    private byte flags;
+
+    private static final byte FLAGS_VALID = 1;
+    private static final byte FLAG_ORDERED_CHILDREN = 1 << 1;
+    private static final byte FLAG_UNIQUELY_LABELED_CHILDREN = 1 << 2;
+    private static final byte FLAG_FULLY_ORDERED = 1 << 3;
 
     /**
      * Constructs a new <code>Artifact</code>.
@@ -123,11 +139,13 @@ public abstract class Artifact<T extends Artifact<T>> implements Comparable<T>,
      */
     protected Artifact(Revision rev, int number) {
         this.children = new ArtifactList<>();
-        this.matches = new HashMap<>();
+        this.matches = null;
         this.revision = rev;
         this.number = number;
-        this.hashValid = false;
         this.hash = null;
+        this.subtreeSize = -1;
+        this.maxDepth = -1;
+        this.flags = 0;
     }
 
     /**
@@ -153,6 +171,9 @@ public abstract class Artifact<T extends Artifact<T>> implements Comparable<T>,
         this.merged = toCopy.merged;
         this.revision = toCopy.revision;
         this.number = toCopy.number;
+        this.subtreeSize = -1;
+        this.maxDepth = -1;
+        this.flags = 0;
     }
 
     /**
@@ -176,6 +197,11 @@ public abstract class Artifact<T extends Artifact<T>> implements Comparable<T>,
      * @param matching matching to be added
      */
     public void addMatching(Matching<T> matching) {
+
+        if (matches == null) {
+            matches = new MatchingStore<>();
+        }
+
         matches.put(matching.getMatchingArtifact(this).getRevision(), matching);
     }
 
@@ -198,16 +224,15 @@ public abstract class Artifact<T extends Artifact<T>> implements Comparable<T>,
     public void copyMatches(Artifact<T> toCopy) {
 
         if (toCopy.matches == null) {
+            this.matches = null;
             return;
         }
 
-        this.matches = new HashMap<>();
-
-        toCopy.matches.entrySet().forEach(en -> {
-            Matching<T> clone = en.getValue().clone();
+        this.matches = new MatchingStore<>(toCopy.matches, matching -> {
+            Matching<T> clone = matching.clone();
             clone.updateMatching(self(), toCopy.self());
 
-            matches.put(en.getKey(), clone);
+            return clone;
         });
     }
 
@@ -288,7 +313,7 @@ public abstract class Artifact<T extends Artifact<T>> implements Comparable<T>,
         if (canAddChild(child)) {
             children.add(child);
             child.setParent(self());
-            invalidateHash();
+            invalidateCaches();
         }
     }
 
@@ -305,7 +330,7 @@ public abstract class Artifact<T extends Artifact<T>> implements Comparable<T>,
         if (canAddChild(child)) {
             children.set(index, child);
             child.setParent(self());
-            invalidateHash();
+            invalidateCaches();
         }
     }
 
@@ -328,7 +353,7 @@ public abstract class Artifact<T extends Artifact<T>> implements Comparable<T>,
     public void clearChildren() {
         if (hasChildren()) {
             children.clear();
-            invalidateHash();
+            invalidateCaches();
         }
     }
 
@@ -384,12 +409,12 @@ public abstract class Artifact<T extends Artifact<T>> implements Comparable<T>,
         Objects.requireNonNull(children, "The list of children must not be null.");
 
         this.children = children;
-        invalidateHash();
+        invalidateCaches();
     }
 
     /**
-     * Applies the given {@code action} to the children of this {@link Artifact} and invalidates the tree hash as
-     * necessary.
+     * Applies the given {@code action} to the children of this {@link Artifact} and invalidates the cached tree
+     * properties as necessary.
      *
      * @param action the action to apply to the list of {@link #children}
      */
@@ -398,7 +423,7 @@ public abstract class Artifact<T extends Artifact<T>> implements Comparable<T>,
         action.accept(children);
 
         if (children.hashCode() != hashBefore) {
-            invalidateHash();
+            invalidateCaches();
         }
     }
 
@@ -435,26 +460,32 @@ public abstract class Artifact<T extends Artifact<T>> implements Comparable<T>,
      *
      * @return the tree hash
      */
-    public String getTreeHash() {
+    public TreeHash getTreeHash() {
 
-        if (hashValid) {
-            return hash;
-        }
+        if (hash == null) {
+            TreeHash.Builder builder = new TreeHash.Builder(hashId(), getNumChildren());
 
-        MessageDigest digest = DigestUtils.getSha256Digest();
-        DigestUtils.updateDigest(digest, hashId());
+            for (Artifact<T> child : children) {
+                builder.add(child.getTreeHash());
+            }
 
-        if (hasChildren()) {
-            children.forEach(c -> DigestUtils.updateDigest(digest, c.getTreeHash()));
-            hash = "1" + Hex.encodeHexString(digest.digest());
-        } else {
-            hash = "0" + Hex.encodeHexString(digest.digest());
+            hash = builder.build();
         }
 
-        hashValid = true;
         return hash;
     }
 
+    /**
+     * Returns a key for this {@code Artifact} such that two {@code Artifact}s can only match as per
+     * {@link #matches(Artifact)} if their keys are equal. Used to index trees for finding matching nodes without
+     * comparing every node.
+     *
+     * @return the key or {@code null} if this {@code Artifact} does not provide one
+     */
+    public Object getMatchKey() {
+        return null;
+    }
+
     /**
      * Returns the {@code String} identifying this {@code Artifact} for the purposes of calculating the tree hash in
      * {@link #getTreeHash()};
@@ -464,14 +495,17 @@ public abstract class Artifact<T extends Artifact<T>> implements Comparable<T>,
     protected abstract String hashId();
 
     /**
-     * Invalidates the hashes of this {@code Artifact} and all its parents.
+     * Invalidates the hashes, subtree sizes, maximum depths and structural flags of this {@code Artifact} and all its
+     * parents.
      */
-    protected void invalidateHash() {
-        hashValid = false;
+    protected void invalidateCaches() {
         hash = null;
+        subtreeSize = -1;
+        maxDepth = -1;
+        flags = 0;
 
         if (parent != null) {
-            parent.invalidateHash();
+            parent.invalidateCaches();
         }
     }
 
@@ -483,7 +517,7 @@ public abstract class Artifact<T extends Artifact<T>> implements Comparable<T>,
      * @return <code>Matching</code> with <code>Revision</code>
      */
     public Matching<T> getMatching(Revision rev) {
-        return matches.get(rev);
+        return matches != null ? matches.get(rev) : null;
     }
 
     /**
@@ -500,7 +534,7 @@ public abstract class Artifact<T extends Artifact<T>> implements Comparable<T>,
         if (m != null) {
             double score = context.isUsePercentage() ? m.getPercentage() : m.getRelevance();
             if (score > context.getThreshold()) return Optional.of(m.getMatchingRevision(r));
-            LOG.info(String.format("Fake match (%s): %s", score, m));
+            LOG.info(() -> String.format("Fake match (%s): %s", score, m));
             if (LOG.isLoggable(Level.FINE)) {
                 System.out.println(m.getLeft().dump(DumpMode.PLAINTEXT_TREE));
                 System.out.println(m.getRight().dump(DumpMode.PLAINTEXT_TREE));
@@ -516,7 +550,7 @@ public abstract class Artifact<T extends Artifact<T>> implements Comparable<T>,
      * @return the <code>Matching</code>s
      */
     public Set<Matching<T>> getMatchings() {
-        return new HashSet<>(matches.values());
+        return matches != null ? new HashSet<>(matches.values()) : new HashSet<>();
     }
 
     /**
@@ -525,7 +559,7 @@ public abstract class Artifact<T extends Artifact<T>> implements Comparable<T>,
      * @return the matchings
      */
     public Map<Revision, Matching<T>> getMatches() {
-        return Collections.unmodifiableMap(matches);
+        return matches != null ? Collections.unmodifiableMap(matches.toMap()) : Collections.emptyMap();
     }
 
     /**
@@ -583,7 +617,18 @@ public abstract class Artifact<T extends Artifact<T>> implements Comparable<T>,
      * @return the maximum depth
      */
     public int getMaxDepth() {
-        return 1 + children.parallelStream().map(T::getMaxDepth).max(Integer::compare).orElse(0);
+
+        if (maxDepth < 0) {
+            int depth = 0;
+
+            for (T child : children) {
+                depth = Math.max(depth, child.getMaxDepth());
+            }
+
+            maxDepth = 1 + depth;
+        }
+
+        return maxDepth;
     }
 
     /**
@@ -592,13 +637,18 @@ public abstract class Artifact<T extends Artifact<T>> implements Comparable<T>,
      * @return size of subtree
      */
     public int getSubtreeSize() {
-        int size = getNumChildren();
 
-        for (int i = 0; i < getNumChildren(); i++) {
-            size += getChild(i).getSubtreeSize();
+        if (subtreeSize < 0) {
+            int size = getNumChildren();
+
+            for (int i = 0; i < getNumChildren(); i++) {
+                size += getChild(i).getSubtreeSize();
+            }
+
+            subtreeSize = size;
         }
 
-        return size;
+        return subtreeSize;
     }
 
     /**
@@ -644,7 +694,7 @@ public abstract class Artifact<T extends Artifact<T>> implements Comparable<T>,
      * @return true if the <code>Artifact</code> has matches
      */
     public boolean hasMatches() {
-        return !matches.isEmpty();
+        return matches != null && !matches.isEmpty();
     }
 
     /**
@@ -659,7 +709,7 @@ public abstract class Artifact<T extends Artifact<T>> implements Comparable<T>,
         if (isChoice()) {
             return variants.entrySet().stream().map(Entry::getValue).anyMatch(var -> var.hasMatching(rev));
         } else {
-            return matches.containsKey(rev);
+            return matches != null && matches.containsKey(rev);
         }
     }
 
@@ -676,7 +726,8 @@ public abstract class Artifact<T extends Artifact<T>> implements Comparable<T>,
         if (isChoice()) {
             return variants.entrySet().stream().map(Entry::getValue).anyMatch(var -> var.hasMatching(other));
         } else {
-            return matches.containsKey(otherRev) && matches.get(otherRev).getMatchingArtifact(this) == other;
+            Matching<T> matching = getMatching(otherRev);
+            return matching != null && matching.getMatchingArtifact(this) == other;
         }
     }
 
@@ -689,9 +740,9 @@ public abstract class Artifact<T extends Artifact<T>> implements Comparable<T>,
      */
     public final float matchPercentageWith(T other) {
         Revision otherRev = other.getRevision();
-        if (!matches.containsKey(otherRev)) return 0;
+        Matching<T> match = getMatching(otherRev);
+        if (match == null) return 0;
 
-        Matching<T> match = matches.get(otherRev);
         if (match.getMatchingArtifact(this).getId().equals(other.getId())) {
             return match.getPercentage();
         }
@@ -708,11 +759,11 @@ public abstract class Artifact<T extends Artifact<T>> implements Comparable<T>,
         if (LOG.isLoggable(Level.FINEST)) {
             LOG.finest("Checking for matchings for " + getId() + " in revision " + rev + ".");
 
-            if (matches.isEmpty()) {
+            if (!hasMatches()) {
                 LOG.finest("No matchings for " + getId() + " in revision " + rev + ".");
             } else {
 
-                for (Entry<Revision, Matching<T>> entry : matches.entrySet()) {
+                for (Entry<Revision, Matching<T>> entry : getMatches().entrySet()) {
                     Revision otherRev = entry.getKey();
                     T matchedArtifact = entry.getValue().getMatchingArtifact(this);
                     LOG.finest("Matching found for revision " + otherRev + " is " + matchedArtifact.getId());
@@ -729,6 +780,19 @@ public abstract class Artifact<T extends Artifact<T>> implements Comparable<T>,
      */
     public abstract Optional<Supplier<String>> getUniqueLabel();
 
+    /**
+     * Returns the {@link Symbols symbol} of the unique label of this <code>Artifact</code> in the given table. Two
+     * <code>Artifact</code>s have the same symbol in the same table if and only if their unique labels are equal.
+     *
+     * @param table
+     *         the table to intern the unique label in
+     * @return the symbol of the unique label or 0 if there is no such label
+     * @see #getUniqueLabel()
+     */
+    public int getUniqueLabelSymbol(Symbols table) {
+        return getUniqueLabel().map(label -> table.symbol(label.get())).orElse(0);
+    }
+
     /**
      * Returns true if the <code>Artifact</code> is a conflict node.
      *
@@ -779,6 +843,77 @@ public abstract class Artifact<T extends Artifact<T>> implements Comparable<T>,
      */
     public abstract boolean isOrdered();
 
+    /**
+     * Returns true if any child of the <code>Artifact</code> is ordered.
+     *
+     * @return true if any child of the <code>Artifact</code> is ordered
+     * @see #isOrdered()
+     */
+    public boolean hasOrderedChildren() {
+        return (getFlags() & FLAG_ORDERED_CHILDREN) != 0;
+    }
+
+    /**
+     * Returns true if all children of the <code>Artifact</code> have a unique label.
+     *
+     * @return true if all children of the <code>Artifact</code> have a unique label
+     * @see #getUniqueLabel()
+     */
+    public boolean hasUniquelyLabeledChildren() {
+        return (getFlags() & FLAG_UNIQUELY_LABELED_CHILDREN) != 0;
+    }
+
+    /**
+     * Returns true if the <code>Artifact</code> and all <code>Artifact</code>s in the tree rooted in it are ordered.
+     *
+     * @return true if the tree rooted in the <code>Artifact</code> is fully ordered
+     * @see #isOrdered()
+     */
+    public boolean isFullyOrdered() {
+        return (getFlags() & FLAG_FULLY_ORDERED) != 0;
+    }
+
+    /**
+     * Returns the structural flags of this <code>Artifact</code>. If they are not valid, they are computed bottom-up
+     * for all <code>Artifact</code>s in the tree rooted in this one whose flags are not valid either.
+     *
+     * @return the structural flags
+     */
+    private byte getFlags() {
+
+        if (flags == 0) {
+            boolean orderedChildren = false;
+            boolean uniquelyLabeledChildren = true;
+            boolean fullyOrdered = isOrdered();
+
+            for (Artifact<T> child : children) {
+                byte childFlags = child.getFlags();
+
+                orderedChildren |= child.isOrdered();
+                uniquelyLabeledChildren &= child.getUniqueLabel().isPresent();
+                fullyOrdered &= (childFlags & FLAG_FULLY_ORDERED) != 0;
+            }
+
+            byte result = FLAGS_VALID;
+
+            if (orderedChildren) {
+                result |= FLAG_ORDERED_CHILDREN;
+            }
+
+            if (uniquelyLabeledChildren) {
+                result |= FLAG_UNIQUELY_LABELED_CHILDREN;
+            }
+
+            if (fullyOrdered) {
+                result |= FLAG_FULLY_ORDERED;
+            }
+
+            flags = result;
+        }
+
+        return flags;
+    }
+
     /**
      * Returns true if the <code>Artifact</code> is the root node.
      *
@@ -0,0 +1,218 @@
+/**
+ * Copyright (C) 2013-2014 Olaf Lessenich
+ * Copyright (C) 2014-2017 University of Passau, Germany
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ * Contributors:
+ *     Olaf Lessenich <lessenic@fim.uni-passau.de>
+ *     Georg Seibt <seibt@fim.uni-passau.de>
+ */
+package de.fosd.jdime.artifact;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+import de.fosd.jdime.config.merge.Revision;
+import de.fosd.jdime.matcher.matching.Matching;
+
+import static de.fosd.jdime.config.merge.MergeScenario.BASE;
+import static de.fosd.jdime.config.merge.MergeScenario.LEFT;
+import static de.fosd.jdime.config.merge.MergeScenario.RIGHT;
+
+/**
+ * Stores the <code>Matching</code>s of an <code>Artifact</code> by the <code>Revision</code> of the matched
+ * <code>Artifact</code>. The <code>Revision</code>s of a three-way merge are stored in fixed slots so that looking
+ * them up does not require hashing. Matchings for any other <code>Revision</code> are stored in a <code>Map</code>
+ * that is only created when needed.
+ *
+ * @param <T>
+ *         the type of the <code>Artifact</code>s
+ */
+final class MatchingStore<T extends Artifact<T>> {
+
+    private static final Revision[] SLOT_REVISIONS = {LEFT, BASE, RIGHT};
+
+    private final Matching<T>[] slots;
+    private Map<Revision, Matching<T>> others;
+    private int size;
+
+    /**
+     * Constructs a new empty <code>MatchingStore</code>.
+     */
+    @SuppressWarnings("unchecked")
+    MatchingStore() {
+        this.slots = (Matching<T>[]) new Matching[SLOT_REVISIONS.length];
+        this.others = null;
+        this.size = 0;
+    }
+
+    /**
+     * Copies the given <code>MatchingStore</code> applying <code>copy</code> to every stored <code>Matching</code>.
+     *
+     * @param toCopy
+     *         the <code>MatchingStore</code> to copy
+     * @param copy
+     *         the function producing the copy of a <code>Matching</code>
+     */
+    MatchingStore(MatchingStore<T> toCopy, UnaryOperator<Matching<T>> copy) {
+        this();
+
+        for (int i = 0; i < slots.length; i++) {
+            if (toCopy.slots[i] != null) {
+                slots[i] = copy.apply(toCopy.slots[i]);
+            }
+        }
+
+        if (toCopy.others != null) {
+            others = new HashMap<>();
+            toCopy.others.forEach((rev, matching) -> others.put(rev, copy.apply(matching)));
+        }
+
+        size = toCopy.size;
+    }
+
+    /**
+     * Returns the index of the slot used for the given <code>Revision</code> or -1 if it does not have one.
+     *
+     * @param rev
+     *         the <code>Revision</code>
+     * @return the slot index or -1
+     */
+    private static int slot(Revision rev) {
+
+        for (int i = 0; i < SLOT_REVISIONS.length; i++) {
+            if (SLOT_REVISIONS[i] == rev) {
+                return i;
+            }
+        }
+
+        for (int i = 0; i < SLOT_REVISIONS.length; i++) {
+            if (SLOT_REVISIONS[i].equals(rev)) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Returns the <code>Matching</code> stored for the given <code>Revision</code> or <code>null</code>.
+     *
+     * @param rev
+     *         the <code>Revision</code> of the matched <code>Artifact</code>
+     * @return the <code>Matching</code> or <code>null</code>
+     */
+    Matching<T> get(Revision rev) {
+        int slot = slot(rev);
+
+        if (slot >= 0) {
+            return slots[slot];
+        }
+
+        return others != null ? others.get(rev) : null;
+    }
+
+    /**
+     * Returns whether a <code>Matching</code> is stored for the given <code>Revision</code>.
+     *
+     * @param rev
+     *         the <code>Revision</code> of the matched <code>Artifact</code>
+     * @return true iff there is a <code>Matching</code> for <code>rev</code>
+     */
+    boolean containsKey(Revision rev) {
+        return get(rev) != null;
+    }
+
+    /**
+     * Stores the given <code>Matching</code> for the given <code>Revision</code> replacing any previous one.
+     *
+     * @param rev
+     *         the <code>Revision</code> of the matched <code>Artifact</code>
+     * @param matching
+     *         the <code>Matching</code> to store
+     */
+    void put(Revision rev, Matching<T> matching) {
+        int slot = slot(rev);
+        Matching<T> previous;
+
+        if (slot >= 0) {
+            previous = slots[slot];
+            slots[slot] = matching;
+        } else {
+            if (others == null) {
+                others = new HashMap<>();
+            }
+
+            previous = others.put(rev, matching);
+        }
+
+        if (previous == null) {
+            size++;
+        }
+    }
+
+    /**
+     * Returns whether this <code>MatchingStore</code> is empty.
+     *
+     * @return true iff no <code>Matching</code> is stored
+     */
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the stored <code>Matching</code>s.
+     *
+     * @return the <code>Matching</code>s
+     */
+    Collection<Matching<T>> values() {
+        Collection<Matching<T>> values = new ArrayList<>(size);
+
+        for (Matching<T> matching : slots) {
+            if (matching != null) {
+                values.add(matching);
+            }
+        }
+
+        if (others != null) {
+            values.addAll(others.values());
+        }
+
+        return values;
+    }
+
+    /**
+     * Returns a <code>Map</code> containing the stored <code>Matching</code>s by the <code>Revision</code> of the
+     * matched <code>Artifact</code>.
+     *
+     * @return the <code>Matching</code>s by <code>Revision</code>
+     */
+    Map<Revision, Matching<T>> toMap() {
+        Map<Revision, Matching<T>> map = others != null ? new HashMap<>(others) : new HashMap<>();
+
+        for (int i = 0; i < slots.length; i++) {
+            if (slots[i] != null) {
+                map.put(SLOT_REVISIONS[i], slots[i]);
+            }
+        }
+
+        return map;
+    }
+}
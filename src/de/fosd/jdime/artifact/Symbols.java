@@ -0,0 +1,125 @@
+/**
+ * Copyright (C) 2013-2014 Olaf Lessenich
+ * Copyright (C) 2014-2017 University of Passau, Germany
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ * Contributors:
+ *     Olaf Lessenich <lessenic@fim.uni-passau.de>
+ *     Georg Seibt <seibt@fim.uni-passau.de>
+ */
+package de.fosd.jdime.artifact;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A table interning <code>String</code>s (e.g. the matching representations or unique labels of artifacts) into
+ * <code>int</code> symbols. Two <code>String</code>s are mapped to the same symbol by the same table if and only if
+ * they are equal, so comparing labels reduces to comparing their symbols. Symbols are positive and assigned in the
+ * order in which the <code>String</code>s are first interned.
+ * <p>
+ * The {@link #current() current} table is shared by all trees involved in a merge. Every merge {@link #open() opens}
+ * the table before and {@link #close() closes} it after it is done. Once no merge has the table open any more, it is
+ * replaced by an empty one, so that it does not retain the labels of all merges but is never replaced while a merge
+ * is in progress. Symbols of different tables must not be compared; callers comparing symbols therefore obtain the
+ * {@link #current()} table once and intern all labels they compare in it.
+ */
+public final class Symbols {
+
+    private static final Object LOCK = new Object();
+
+    private static volatile Symbols current = new Symbols();
+
+    /**
+     * The number of merges that have {@link #current} open. Guarded by {@link #LOCK}.
+     */
+    private static int open = 0;
+
+    private final Map<String, Integer> symbols;
+    private final AtomicInteger next;
+
+    /**
+     * Constructs a new empty <code>Symbols</code> table.
+     */
+    private Symbols() {
+        this.symbols = new ConcurrentHashMap<>();
+        this.next = new AtomicInteger(1);
+    }
+
+    /**
+     * Returns the current table.
+     *
+     * @return the current <code>Symbols</code> table
+     */
+    public static Symbols current() {
+        return current;
+    }
+
+    /**
+     * Opens the current table for a merge. The table is not replaced until every merge that opened it called
+     * {@link #close()}.
+     *
+     * @return the current <code>Symbols</code> table
+     */
+    public static Symbols open() {
+        synchronized (LOCK) {
+            open++;
+            return current;
+        }
+    }
+
+    /**
+     * Closes the current table for a merge that called {@link #open()} before. If no other merge has the table open,
+     * it is replaced by an empty one.
+     */
+    public static void close() {
+        synchronized (LOCK) {
+
+            if (open > 0 && --open == 0) {
+                current = new Symbols();
+            }
+        }
+    }
+
+    /**
+     * Returns the symbol for the given <code>String</code> in this table, assigning a new one if it was not interned
+     * before.
+     *
+     * @param string
+     *         the <code>String</code> to intern
+     * @return the symbol, always greater than 0
+     */
+    public int symbol(String string) {
+        Integer symbol = symbols.get(string);
+
+        if (symbol == null) {
+            symbol = symbols.computeIfAbsent(string, s -> next.getAndIncrement());
+        }
+
+        return symbol;
+    }
+
+    /**
+     * Returns the number of <code>String</code>s interned in this table.
+     *
+     * @return the size of this table
+     */
+    public int size() {
+        return symbols.size();
+    }
+}
@@ -0,0 +1,228 @@
+/**
+ * Copyright (C) 2013-2014 Olaf Lessenich
+ * Copyright (C) 2014-2017 University of Passau, Germany
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ * Contributors:
+ *     Olaf Lessenich <lessenic@fim.uni-passau.de>
+ *     Georg Seibt <seibt@fim.uni-passau.de>
+ */
+package de.fosd.jdime.artifact;
+
+/**
+ * A 128 bit hash of an <code>Artifact</code> tree as returned by {@link Artifact#getTreeHash()}. The hash is built
+ * bottom-up using the block mixing and finalization steps of MurmurHash3 (x64, 128 bit variant). The input of a node
+ * consists of its identifying <code>String</code>, the number of its children and the hashes of its children.
+ * <p>
+ * The hash is not cryptographic but collisions between two distinct trees are negligibly unlikely for the tree sizes
+ * encountered during merging.
+ */
+public final class TreeHash {
+
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+
+    private final long high;
+    private final long low;
+
+    /**
+     * Constructs a new <code>TreeHash</code> from its two halves.
+     *
+     * @param high
+     *         the upper 64 bits
+     * @param low
+     *         the lower 64 bits
+     */
+    private TreeHash(long high, long low) {
+        this.high = high;
+        this.low = low;
+    }
+
+    /**
+     * Returns the upper 64 bits of the hash.
+     *
+     * @return the upper 64 bits
+     */
+    public long getHigh() {
+        return high;
+    }
+
+    /**
+     * Returns the lower 64 bits of the hash.
+     *
+     * @return the lower 64 bits
+     */
+    public long getLow() {
+        return low;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        TreeHash other = (TreeHash) o;
+        return high == other.high && low == other.low;
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (low ^ (low >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%016x%016x", high, low);
+    }
+
+    /**
+     * Computes the <code>TreeHash</code> of a node from its identifying <code>String</code> and the hashes of its
+     * children. The children are added in order using {@link #add(TreeHash)}.
+     */
+    static final class Builder {
+
+        private long h1;
+        private long h2;
+        private long length;
+
+        /**
+         * Constructs a new <code>Builder</code> for a node.
+         *
+         * @param id
+         *         the identifying <code>String</code> of the node
+         * @param numChildren
+         *         the number of children of the node
+         */
+        Builder(String id, int numChildren) {
+            this.h1 = 0;
+            this.h2 = 0;
+            this.length = 0;
+
+            // the lengths make the encoding of the id and the children unambiguous
+            block(id.length(), numChildren);
+
+            for (int i = 0; i < id.length(); i += 8) {
+                block(pack(id, i), pack(id, i + 4));
+            }
+        }
+
+        /**
+         * Packs up to four characters of <code>id</code> starting at <code>from</code> into a <code>long</code>.
+         * Missing characters are zero.
+         *
+         * @param id
+         *         the <code>String</code> to pack
+         * @param from
+         *         the index of the first character
+         * @return the packed characters
+         */
+        private static long pack(String id, int from) {
+            long k = 0;
+
+            for (int i = Math.min(from + 4, id.length()) - 1; i >= from; i--) {
+                k = (k << 16) | id.charAt(i);
+            }
+
+            return k;
+        }
+
+        /**
+         * Adds the hash of the next child.
+         *
+         * @param child
+         *         the <code>TreeHash</code> of the child
+         * @return this <code>Builder</code>
+         */
+        Builder add(TreeHash child) {
+            block(child.high, child.low);
+            return this;
+        }
+
+        /**
+         * Mixes a 16 byte block into the state.
+         *
+         * @param k1
+         *         the first 8 bytes
+         * @param k2
+         *         the second 8 bytes
+         */
+        private void block(long k1, long k2) {
+            k1 *= C1;
+            k1 = Long.rotateLeft(k1, 31);
+            k1 *= C2;
+            h1 ^= k1;
+
+            h1 = Long.rotateLeft(h1, 27);
+            h1 += h2;
+            h1 = h1 * 5 + 0x52dce729;
+
+            k2 *= C2;
+            k2 = Long.rotateLeft(k2, 33);
+            k2 *= C1;
+            h2 ^= k2;
+
+            h2 = Long.rotateLeft(h2, 31);
+            h2 += h1;
+            h2 = h2 * 5 + 0x38495ab5;
+
+            length += 16;
+        }
+
+        /**
+         * Finalizes the state and returns the resulting <code>TreeHash</code>.
+         *
+         * @return the <code>TreeHash</code>
+         */
+        TreeHash build() {
+            long r1 = h1 ^ length;
+            long r2 = h2 ^ length;
+
+            r1 += r2;
+            r2 += r1;
+
+            r1 = fmix(r1);
+            r2 = fmix(r2);
+
+            r1 += r2;
+            r2 += r1;
+
+            return new TreeHash(r1, r2);
+        }
+
+        /**
+         * The finalization mix of MurmurHash3 forcing all bits of <code>k</code> to avalanche.
+         *
+         * @param k
+         *         the value to mix
+         * @return the mixed value
+         */
+        private static long fmix(long k) {
+            k ^= k >>> 33;
+            k *= 0xff51afd7ed558ccdL;
+            k ^= k >>> 33;
+            k *= 0xc4ceb9fe1a85ec53L;
+            k ^= k >>> 33;
+
+            return k;
+        }
+    }
+}
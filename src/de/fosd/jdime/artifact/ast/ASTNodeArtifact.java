@@ -26,6 +26,7 @@ package de.fosd.jdime.artifact.ast;
 import de.fosd.jdime.artifact.Artifact;
 import de.fosd.jdime.artifact.ArtifactList;
 import de.fosd.jdime.artifact.Artifacts;
+import de.fosd.jdime.artifact.Symbols;
 import de.fosd.jdime.artifact.file.FileArtifact;
 import de.fosd.jdime.config.merge.MergeContext;
 import de.fosd.jdime.config.merge.MergeScenario;
@@ -88,6 +89,13 @@ public class ASTNodeArtifact extends Artifact<ASTNodeArtifact> {
      */
     protected ASTNode<?> astnode;
 
+    /**
+     * The matching representation of {@link #astnode} and its {@link Symbols symbol}. Computed on demand and reset by
+     * {@link #invalidateCaches()}.
+     */
+    private String representation;
+    private volatile Symbol symbol;
+
     /**
      * Constructs a new <code>ASTNodeArtifact</code> (tree) representing the AST of the code in <code>artifact</code>.
      * All members of the tree will be in the same <code>Revision</code> as <code>artifact</code>.
@@ -246,7 +254,70 @@ public class ASTNodeArtifact extends Artifact<ASTNodeArtifact> {
 
     @Override
     protected String hashId() {
-        return astnode.getMatchingRepresentation();
+        return getRepresentation();
+    }
+
+    @Override
+    public Object getMatchKey() {
+        return getRepresentation();
+    }
+
+    @Override
+    protected void invalidateCaches() {
+        representation = null;
+        symbol = null;
+        super.invalidateCaches();
+    }
+
+    /**
+     * Returns the matching representation of the encapsulated <code>ASTNode</code>.
+     *
+     * @return the matching representation
+     * @see ASTNode#getMatchingRepresentation()
+     */
+    private String getRepresentation() {
+        String rep = representation;
+
+        if (rep == null) {
+            rep = astnode.getMatchingRepresentation();
+            representation = rep;
+        }
+
+        return rep;
+    }
+
+    /**
+     * Returns the {@link Symbols symbol} of the matching representation of the encapsulated <code>ASTNode</code> in
+     * the given table.
+     *
+     * @param table
+     *         the table to intern the matching representation in
+     * @return the symbol of the matching representation
+     */
+    private int getSymbol(Symbols table) {
+        Symbol sym = symbol;
+
+        if (sym == null || sym.table != table) {
+            sym = new Symbol(table, table.symbol(getRepresentation()));
+            symbol = sym;
+        }
+
+        return sym.value;
+    }
+
+    /**
+     * A symbol and the table it was interned in. Both are published together so that a symbol is never read with
+     * the table of another one.
+     */
+    private static final class Symbol {
+
+        private final Symbols table;
+        private final int value;
+
+        private Symbol(Symbols table, int value) {
+            this.table = table;
+            this.value = value;
+        }
     }
 
     @Override
@@ -351,10 +422,22 @@ public class ASTNodeArtifact extends Artifact<ASTNodeArtifact> {
 
     @Override
     public Optional<Supplier<String>> getUniqueLabel() {
-        boolean hasLabel = ImportDecl.class.isAssignableFrom(astnode.getClass())
-                || Literal.class.isAssignableFrom(astnode.getClass());
+        return hasUniqueLabel() ? Optional.of(this::getRepresentation) : Optional.empty();
+    }
 
-        return hasLabel ? Optional.of(() -> astnode.getMatchingRepresentation()) : Optional.empty();
+    @Override
+    public int getUniqueLabelSymbol(Symbols table) {
+        return hasUniqueLabel() ? getSymbol(table) : 0;
+    }
+
+    /**
+     * Returns whether the matching representation of the encapsulated <code>ASTNode</code> is a unique label.
+     *
+     * @return whether this <code>ASTNodeArtifact</code> has a unique label
+     */
+    private boolean hasUniqueLabel() {
+        return ImportDecl.class.isAssignableFrom(astnode.getClass())
+                || Literal.class.isAssignableFrom(astnode.getClass());
     }
 
     @Override
@@ -373,7 +456,8 @@ public class ASTNodeArtifact extends Artifact<ASTNodeArtifact> {
     }
 
     /**
-     * Returns whether a node matches another node.
+     * Returns whether a node matches another node. This is the case if the encapsulated <code>ASTNode</code>s are of
+     * the same class and have equal matching representations.
      *
      * @param other node to compare with.
      * @return true if the node matches another node.
@@ -387,12 +471,18 @@ public class ASTNodeArtifact extends Artifact<ASTNodeArtifact> {
         LOG.finest(() -> "match(" + getId() + ", " + other.getId() + ")");
 
         LOG.finest(() -> {
-            String matchingRep = astnode.getMatchingRepresentation();
-            String otherMatchingRep = other.astnode.getMatchingRepresentation();
+            String matchingRep = getRepresentation();
+            String otherMatchingRep = other.getRepresentation();
             return String.format("Try Matching: {%s} and {%s}", matchingRep, otherMatchingRep);
         });
 
-        return astnode.matches(other.astnode);
+        if (astnode.getClass() != other.astnode.getClass()) {
+            return false;
+        }
+
+        // equivalent to astnode.matches(other.astnode) but compares the matching representations interned in one table
+        Symbols table = Symbols.current();
+        return getSymbol(table) == other.getSymbol(table);
     }
 
     @Override
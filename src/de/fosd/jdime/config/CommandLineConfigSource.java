@@ -71,6 +71,8 @@ public class CommandLineConfigSource extends ConfigSource {
     public static final String CLI_CM_PARALLEL = "cmpar";
     public static final String CLI_CM_FIX_PERCENTAGE = "cmfix";
     public static final String CLI_CM_SEED = "cmseed";
+    public static final String CLI_CM_CHAINS = "cmchains";
+    public static final String CLI_CM_CANDIDATES = "cmcand";
 
     /**
      * Expected artifact.
@@ -380,6 +382,26 @@ public class CommandLineConfigSource extends ConfigSource {
 
         options.addOption(o);
 
+        o = Option.builder(CLI_CM_CHAINS)
+                .longOpt("cost-model-chains")
+                .desc("The number of independent chains the cost model matcher runs in parallel. Every chain uses " +
+                        "its own PRNG seeded from the cost model seed. The matchings with the lowest cost found by " +
+                        "any chain are used. The default is 1.")
+                .hasArg(true)
+                .build();
+
+        options.addOption(o);
+
+        o = Option.builder(CLI_CM_CANDIDATES)
+                .longOpt("cost-model-candidates")
+                .desc("If positive, the cost model matcher only considers this many of the most plausible partners " +
+                        "for every node instead of all nodes of the other tree. Plausibility is based on equal " +
+                        "subtrees, matching labels, matching parents and equal numbers of children. The default is 0.")
+                .hasArg(true)
+                .build();
+
+        options.addOption(o);
+
         o = Option.builder(CLI_EXPECTED)
                 .longOpt("expected")
                 .desc("Expected artifact to compare with.")
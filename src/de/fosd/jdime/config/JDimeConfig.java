@@ -114,6 +114,80 @@ public final class JDimeConfig extends Config {
      */
     public static final String USE_MCESUBTREE_MATCHER = "USE_MCESUBTREE_MATCHER";
 
+    /**
+     * The maximum number of (left, right) artifact pairs whose <code>Matchings</code> the <code>Matcher</code>
+     * memoizes during a single run. The same limit applies to the number of pairs of tree hashes for which
+     * <code>Matchings</code> are kept to be re-instantiated onto isomorphic trees. A value of 0 disables both. Must
+     * be a number parseable by {@link Integer#parseInt(String)}. Defaults to 0.
+     */
+    public static final String MATCHER_MEMO_SIZE = "MATCHER_MEMO_SIZE";
+
+    /**
+     * Whether the <code>SimpleTreeMatcher</code> and <code>AssignmentProblemMatcher</code> should match the pairs of
+     * children of the artifacts they compare in parallel using fork/join tasks. Has no effect if a
+     * {@link #MATCHER_WORK_BUDGET} is set. The <code>SimpleTreeMatcher</code> always matches sequentially if
+     * {@link #MATCHER_PRUNING} or {@link #MATCHER_DIFF_MIN_CHILDREN} apply. Must be either 'true' or 'false'. Defaults
+     * to false.
+     */
+    public static final String MATCHER_PARALLEL = "MATCHER_PARALLEL";
+
+    /**
+     * The minimum combined size of the trees involved in matching a range of child pairs for the range to be split
+     * into parallel tasks if {@link #MATCHER_PARALLEL} is enabled. Must be a number parseable by
+     * {@link Integer#parseInt(String)}. Defaults to 500.
+     */
+    public static final String MATCHER_PARALLEL_MIN_SIZE = "MATCHER_PARALLEL_MIN_SIZE";
+
+    /**
+     * Whether the <code>SimpleTreeMatcher</code> should skip matching pairs of children whose upper bound score could
+     * not improve the score of the matching. Must be either 'true' or 'false'. Defaults to false.
+     */
+    public static final String MATCHER_PRUNING = "MATCHER_PRUNING";
+
+    /**
+     * The algorithm used to solve the assignment problems when matching unordered children. Must be the name of one
+     * of the constants of <code>AssignmentSolver</code> (case insensitive). Defaults to 'hungarian'.
+     */
+    public static final String MATCHER_ASSIGNMENT_SOLVER = "MATCHER_ASSIGNMENT_SOLVER";
+
+    /**
+     * The maximum number of pairs of children the expensive matchers (e.g. <code>SimpleTreeMatcher</code> and
+     * <code>HungarianMatcher</code>) may consider while matching two trees. Nodes whose pairs of children do not fit
+     * into the remaining budget are matched by the cheap <code>PositionalMatcher</code>. The budget applies to a
+     * whole merge of two or three trees. If it is set, pairs of children are never matched in parallel (see
+     * {@link #MATCHER_PARALLEL}) so that the nodes that get degraded do not depend on the scheduling of threads. Must
+     * be a number parseable by {@link Integer#parseInt(String)}. Defaults to 0, meaning unlimited.
+     */
+    public static final String MATCHER_WORK_BUDGET = "MATCHER_WORK_BUDGET";
+
+    /**
+     * The time in milliseconds after which the <code>Matcher</code> only uses cheap matchers for the remaining nodes
+     * of the trees involved in a merge. Must be a number parseable by {@link Integer#parseInt(String)}. Defaults to 0,
+     * meaning unlimited.
+     */
+    public static final String MATCHER_TIME_BUDGET = "MATCHER_TIME_BUDGET";
+
+    /**
+     * The minimum number of children both artifacts must have for the <code>SimpleTreeMatcher</code> to first align
+     * their children by tree hash and only run its DP on the gaps between identical children. Must be a number
+     * parseable by {@link Integer#parseInt(String)}. Defaults to 0, meaning the alignment is never used.
+     */
+    public static final String MATCHER_DIFF_MIN_CHILDREN = "MATCHER_DIFF_MIN_CHILDREN";
+
+    /**
+     * Whether the left and right trees of a three-way merge should be pre-matched by composing their matchings with
+     * the base tree. Nodes whose subtrees are unchanged with respect to base on both sides are then only matched with
+     * their counterpart. Must be either 'true' or 'false'. Defaults to false.
+     */
+    public static final String MATCHER_BASE_SEEDING = "MATCHER_BASE_SEEDING";
+
+    /**
+     * Whether the <code>SimpleTreeMatcher</code> and the <code>AssignmentProblemMatcher</code> should only keep the
+     * matchings of those pairs of children that may still be selected. The <code>SimpleTreeMatcher</code> then matches
+     * the pairs of children sequentially. Must be either 'true' or 'false'. Defaults to false.
+     */
+    public static final String MATCHER_LEAN = "MATCHER_LEAN";
+
     /**
      * Whether to append a number to the file name to ensure that no file of the same name is overwritten when
      * writing the statistics. Must be either 'true' or 'false'. Defaults to true.
@@ -47,7 +47,9 @@ import de.fosd.jdime.artifact.file.FileArtifact;
 import de.fosd.jdime.config.CommandLineConfigSource;
 import de.fosd.jdime.config.JDimeConfig;
 import de.fosd.jdime.execption.AbortException;
+import de.fosd.jdime.matcher.MatcherBudget;
 import de.fosd.jdime.matcher.cost_model.CMMode;
+import de.fosd.jdime.matcher.unordered.assignmentProblem.AssignmentSolver;
 import de.fosd.jdime.matcher.cost_model.CostModelMatcher;
 import de.fosd.jdime.stats.KeyEnums;
 import de.fosd.jdime.stats.MergeScenarioStatistics;
@@ -60,6 +62,16 @@ import de.fosd.jdime.strdump.DumpMode;
 
 import static de.fosd.jdime.config.CommandLineConfigSource.*;
 import static de.fosd.jdime.config.JDimeConfig.FILTER_INPUT_DIRECTORIES;
+import static de.fosd.jdime.config.JDimeConfig.MATCHER_ASSIGNMENT_SOLVER;
+import static de.fosd.jdime.config.JDimeConfig.MATCHER_BASE_SEEDING;
+import static de.fosd.jdime.config.JDimeConfig.MATCHER_DIFF_MIN_CHILDREN;
+import static de.fosd.jdime.config.JDimeConfig.MATCHER_LEAN;
+import static de.fosd.jdime.config.JDimeConfig.MATCHER_MEMO_SIZE;
+import static de.fosd.jdime.config.JDimeConfig.MATCHER_PARALLEL;
+import static de.fosd.jdime.config.JDimeConfig.MATCHER_PARALLEL_MIN_SIZE;
+import static de.fosd.jdime.config.JDimeConfig.MATCHER_PRUNING;
+import static de.fosd.jdime.config.JDimeConfig.MATCHER_TIME_BUDGET;
+import static de.fosd.jdime.config.JDimeConfig.MATCHER_WORK_BUDGET;
 import static de.fosd.jdime.config.JDimeConfig.STATISTICS_XML_EXCLUDE_MSS_FIELDS;
 import static de.fosd.jdime.config.JDimeConfig.TWOWAY_FALLBACK;
 import static de.fosd.jdime.config.JDimeConfig.USE_MCESUBTREE_MATCHER;
@@ -199,6 +211,32 @@ public class MergeContext implements Cloneable {
      */
     private boolean useMCESubtreeMatcher;
 
+    /**
+     * The maximum number of artifact pairs whose <code>Matchings</code> the <code>Matcher</code> memoizes during a
+     * single run.
+     */
+    private int matcherMemoSize;
+
+    /**
+     * Whether to match the pairs of children of the compared artifacts in parallel and the minimum combined tree size
+     * of a range of child pairs for it to be split into parallel tasks.
+     */
+    private boolean matcherParallel;
+    private int matcherParallelMinSize;
+    private boolean matcherPruning;
+    private AssignmentSolver matcherAssignmentSolver;
+    private int matcherWorkBudget;
+    private int matcherTimeBudget;
+
+    /**
+     * The budget shared by all runs of the <code>Matcher</code> during the current merge, <code>null</code> if no
+     * merge is in progress.
+     */
+    private MatcherBudget matcherBudget;
+    private int matcherDiffMinChildren;
+    private boolean matcherBaseSeeding;
+    private boolean matcherLean;
+
     /**
      * Whether {@link StructuredStrategy} act semi-structured, that is whether it should perform line based merging
      * on the configured {@link #semiStructuredLevel}.
@@ -238,6 +276,8 @@ public class MergeContext implements Cloneable {
     private int costModelIterations;
     private boolean cmMatcherParallel;
     private boolean cmMatcherFixRandomPercentage;
+    private int cmMatcherChains;
+    private int cmMatcherCandidates;
 
     /**
      * Expected file/folder. When given, compare result with this expected file/folder after merge.
@@ -276,6 +316,16 @@ public class MergeContext implements Cloneable {
         this.statistics = new Statistics();
         this.excludeStatisticsMSSFields = new ArrayList<>();
         this.useMCESubtreeMatcher = false;
+        this.matcherMemoSize = 0;
+        this.matcherParallel = false;
+        this.matcherParallelMinSize = 500;
+        this.matcherPruning = false;
+        this.matcherAssignmentSolver = AssignmentSolver.HUNGARIAN;
+        this.matcherWorkBudget = 0;
+        this.matcherTimeBudget = 0;
+        this.matcherDiffMinChildren = 0;
+        this.matcherBaseSeeding = false;
+        this.matcherLean = false;
         this.semiStructured = false;
         this.semiStructuredLevel = KeyEnums.Level.METHOD;
         this.lookAhead = MergeContext.LOOKAHEAD_OFF;
@@ -295,6 +345,8 @@ public class MergeContext implements Cloneable {
         this.costModelIterations = 100;
         this.cmMatcherParallel = true;
         this.cmMatcherFixRandomPercentage = true;
+        this.cmMatcherChains = 1;
+        this.cmMatcherCandidates = 0;
         this.expected = Optional.empty();
         this.threshold = 0.5;
         this.usePercentage = false;
@@ -331,6 +383,17 @@ public class MergeContext implements Cloneable {
         this.statistics = new Statistics(toCopy.statistics);
         this.excludeStatisticsMSSFields = new ArrayList<>(toCopy.excludeStatisticsMSSFields);
         this.useMCESubtreeMatcher = toCopy.useMCESubtreeMatcher;
+        this.matcherMemoSize = toCopy.matcherMemoSize;
+        this.matcherParallel = toCopy.matcherParallel;
+        this.matcherParallelMinSize = toCopy.matcherParallelMinSize;
+        this.matcherPruning = toCopy.matcherPruning;
+        this.matcherAssignmentSolver = toCopy.matcherAssignmentSolver;
+        this.matcherWorkBudget = toCopy.matcherWorkBudget;
+        this.matcherTimeBudget = toCopy.matcherTimeBudget;
+        this.matcherBudget = toCopy.matcherBudget;
+        this.matcherDiffMinChildren = toCopy.matcherDiffMinChildren;
+        this.matcherBaseSeeding = toCopy.matcherBaseSeeding;
+        this.matcherLean = toCopy.matcherLean;
         this.semiStructured = toCopy.semiStructured;
         this.semiStructuredLevel = toCopy.semiStructuredLevel;
 
@@ -352,6 +415,8 @@ public class MergeContext implements Cloneable {
         this.costModelIterations = toCopy.costModelIterations;
         this.cmMatcherParallel = toCopy.cmMatcherParallel;
         this.cmMatcherFixRandomPercentage = toCopy.cmMatcherFixRandomPercentage;
+        this.cmMatcherChains = toCopy.cmMatcherChains;
+        this.cmMatcherCandidates = toCopy.cmMatcherCandidates;
         this.expected = toCopy.expected;
         this.leftArtifactRoot = toCopy.leftArtifactRoot;
         this.threshold = toCopy.threshold;
@@ -467,6 +532,26 @@ public class MergeContext implements Cloneable {
         }
 
         config.getBoolean(USE_MCESUBTREE_MATCHER).ifPresent(this::setUseMCESubtreeMatcher);
+        config.getInteger(MATCHER_MEMO_SIZE).ifPresent(this::setMatcherMemoSize);
+        config.getBoolean(MATCHER_PARALLEL).ifPresent(this::setMatcherParallel);
+        config.getInteger(MATCHER_PARALLEL_MIN_SIZE).ifPresent(this::setMatcherParallelMinSize);
+        config.getBoolean(MATCHER_PRUNING).ifPresent(this::setMatcherPruning);
+
+        config.get(MATCHER_ASSIGNMENT_SOLVER, solver -> {
+
+            try {
+                return Optional.of(AssignmentSolver.valueOf(solver.toUpperCase()));
+            } catch (IllegalArgumentException e) {
+                LOG.log(WARNING, e, () -> "Invalid assignment solver " + solver);
+                return Optional.empty();
+            }
+        }).ifPresent(this::setMatcherAssignmentSolver);
+
+        config.getInteger(MATCHER_WORK_BUDGET).ifPresent(this::setMatcherWorkBudget);
+        config.getInteger(MATCHER_TIME_BUDGET).ifPresent(this::setMatcherTimeBudget);
+        config.getInteger(MATCHER_DIFF_MIN_CHILDREN).ifPresent(this::setMatcherDiffMinChildren);
+        config.getBoolean(MATCHER_BASE_SEEDING).ifPresent(this::setMatcherBaseSeeding);
+        config.getBoolean(MATCHER_LEAN).ifPresent(this::setMatcherLean);
 
         // config threshold
         boolean per = config.getBoolean(CLI_USE_PERCENTAGE).orElse(false);
@@ -606,6 +691,9 @@ public class MergeContext implements Cloneable {
                 }
             }
         });
+
+        config.getInteger(CLI_CM_CHAINS).ifPresent(this::setCmMatcherChains);
+        config.getInteger(CLI_CM_CANDIDATES).ifPresent(this::setCmMatcherCandidates);
     }
 
     /**
@@ -1192,6 +1280,215 @@ public class MergeContext implements Cloneable {
         this.useMCESubtreeMatcher = useMCESubtreeMatcher;
     }
 
+    /**
+     * Returns the maximum number of artifact pairs whose <code>Matchings</code> the <code>Matcher</code> memoizes
+     * during a single run.
+     *
+     * @return the maximum size of the memo, 0 if it is disabled
+     */
+    public int getMatcherMemoSize() {
+        return matcherMemoSize;
+    }
+
+    /**
+     * Sets the maximum number of artifact pairs whose <code>Matchings</code> the <code>Matcher</code> memoizes
+     * during a single run. Negative values are treated as 0, disabling the memo.
+     *
+     * @param matcherMemoSize the new value
+     */
+    public void setMatcherMemoSize(int matcherMemoSize) {
+        this.matcherMemoSize = Math.max(0, matcherMemoSize);
+    }
+
+    /**
+     * Returns whether the pairs of children of the compared artifacts should be matched in parallel.
+     *
+     * @return whether to match child pairs in parallel
+     */
+    public boolean isMatcherParallel() {
+        return matcherParallel;
+    }
+
+    /**
+     * Sets whether the pairs of children of the compared artifacts should be matched in parallel.
+     *
+     * @param matcherParallel the new value
+     */
+    public void setMatcherParallel(boolean matcherParallel) {
+        this.matcherParallel = matcherParallel;
+    }
+
+    /**
+     * Returns the minimum combined tree size of a range of child pairs for it to be split into parallel tasks.
+     *
+     * @return the minimum size for splitting the work of matching child pairs
+     */
+    public int getMatcherParallelMinSize() {
+        return matcherParallelMinSize;
+    }
+
+    /**
+     * Sets the minimum combined tree size of a range of child pairs for it to be split into parallel tasks.
+     *
+     * @param matcherParallelMinSize the new value
+     */
+    public void setMatcherParallelMinSize(int matcherParallelMinSize) {
+        this.matcherParallelMinSize = matcherParallelMinSize;
+    }
+
+    /**
+     * Returns whether pairs of children that can not improve the score of an ordered matching should be skipped.
+     *
+     * @return whether to prune hopeless child pairs
+     */
+    public boolean isMatcherPruning() {
+        return matcherPruning;
+    }
+
+    /**
+     * Sets whether pairs of children that can not improve the score of an ordered matching should be skipped.
+     *
+     * @param matcherPruning the new value
+     */
+    public void setMatcherPruning(boolean matcherPruning) {
+        this.matcherPruning = matcherPruning;
+    }
+
+    /**
+     * Returns the algorithm used to solve the assignment problems when matching unordered children.
+     *
+     * @return the assignment solver
+     */
+    public AssignmentSolver getMatcherAssignmentSolver() {
+        return matcherAssignmentSolver;
+    }
+
+    /**
+     * Sets the algorithm used to solve the assignment problems when matching unordered children.
+     *
+     * @param matcherAssignmentSolver the new value
+     */
+    public void setMatcherAssignmentSolver(AssignmentSolver matcherAssignmentSolver) {
+        this.matcherAssignmentSolver = matcherAssignmentSolver;
+    }
+
+    /**
+     * Returns the maximum number of pairs of children the expensive matchers may consider while matching two trees.
+     *
+     * @return the work budget, 0 if it is unlimited
+     */
+    public int getMatcherWorkBudget() {
+        return matcherWorkBudget;
+    }
+
+    /**
+     * Sets the maximum number of pairs of children the expensive matchers may consider while matching two trees.
+     * Values smaller than 1 disable the budget.
+     *
+     * @param matcherWorkBudget the new value
+     */
+    public void setMatcherWorkBudget(int matcherWorkBudget) {
+        this.matcherWorkBudget = Math.max(0, matcherWorkBudget);
+    }
+
+    /**
+     * Returns the time in milliseconds after which only cheap matchers are used while matching two trees.
+     *
+     * @return the time budget, 0 if it is unlimited
+     */
+    public int getMatcherTimeBudget() {
+        return matcherTimeBudget;
+    }
+
+    /**
+     * Sets the time in milliseconds after which only cheap matchers are used while matching two trees. Values
+     * smaller than 1 disable the budget.
+     *
+     * @param matcherTimeBudget the new value
+     */
+    public void setMatcherTimeBudget(int matcherTimeBudget) {
+        this.matcherTimeBudget = Math.max(0, matcherTimeBudget);
+    }
+
+    /**
+     * Returns the budget shared by all runs of the <code>Matcher</code> during the current merge.
+     *
+     * @return the <code>MatcherBudget</code> or <code>null</code> if no merge is in progress, in which case every run
+     *         of the <code>Matcher</code> uses its own budget
+     */
+    public MatcherBudget getMatcherBudget() {
+        return matcherBudget;
+    }
+
+    /**
+     * Sets the budget shared by all runs of the <code>Matcher</code> during the current merge.
+     *
+     * @param matcherBudget the new value, <code>null</code> at the end of a merge
+     */
+    public void setMatcherBudget(MatcherBudget matcherBudget) {
+        this.matcherBudget = matcherBudget;
+    }
+
+    /**
+     * Returns the minimum number of children two artifacts must have for their children to be aligned by tree hash
+     * before matching them in order.
+     *
+     * @return the minimum number of children, 0 if the alignment is disabled
+     */
+    public int getMatcherDiffMinChildren() {
+        return matcherDiffMinChildren;
+    }
+
+    /**
+     * Sets the minimum number of children two artifacts must have for their children to be aligned by tree hash
+     * before matching them in order. Values smaller than 1 disable the alignment.
+     *
+     * @param matcherDiffMinChildren the new value
+     */
+    public void setMatcherDiffMinChildren(int matcherDiffMinChildren) {
+        this.matcherDiffMinChildren = Math.max(0, matcherDiffMinChildren);
+    }
+
+    /**
+     * Returns whether the left and right trees of a three-way merge should be pre-matched using their matchings with
+     * the base tree.
+     *
+     * @return whether to seed the left-right matching from base
+     */
+    public boolean isMatcherBaseSeeding() {
+        return matcherBaseSeeding;
+    }
+
+    /**
+     * Sets whether the left and right trees of a three-way merge should be pre-matched using their matchings with
+     * the base tree.
+     *
+     * @param matcherBaseSeeding the new value
+     */
+    public void setMatcherBaseSeeding(boolean matcherBaseSeeding) {
+        this.matcherBaseSeeding = matcherBaseSeeding;
+    }
+
+    /**
+     * Returns whether the ordered and unordered matchers should only keep the matchings of those pairs of children
+     * that may still be selected.
+     *
+     * @return whether to match children in the memory-lean mode
+     */
+    public boolean isMatcherLean() {
+        return matcherLean;
+    }
+
+    /**
+     * Sets whether the ordered and unordered matchers should only keep the matchings of those pairs of children
+     * that may still be selected.
+     *
+     * @param matcherLean the new value
+     */
+    public void setMatcherLean(boolean matcherLean) {
+        this.matcherLean = matcherLean;
+    }
+
     /**
      * Returns whether the {@link StructuredStrategy} should act semi-structured, that is whether it should perform line
      * based merging on the configured {@link #semiStructuredLevel}.
@@ -1388,6 +1685,22 @@ public class MergeContext implements Cloneable {
         this.cmMatcherFixRandomPercentage = cmMatcherFixRandomPercentage;
     }
 
+    public int getCmMatcherChains() {
+        return cmMatcherChains;
+    }
+
+    public void setCmMatcherChains(int cmMatcherChains) {
+        this.cmMatcherChains = cmMatcherChains;
+    }
+
+    public int getCmMatcherCandidates() {
+        return cmMatcherCandidates;
+    }
+
+    public void setCmMatcherCandidates(int cmMatcherCandidates) {
+        this.cmMatcherCandidates = cmMatcherCandidates;
+    }
+
     /**
      * Get corresponding expected artifact.
      *
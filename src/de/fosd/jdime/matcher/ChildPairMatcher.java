@@ -0,0 +1,242 @@
+/**
+ * Copyright (C) 2013-2014 Olaf Lessenich
+ * Copyright (C) 2014-2017 University of Passau, Germany
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ * Contributors:
+ *     Olaf Lessenich <lessenic@fim.uni-passau.de>
+ *     Georg Seibt <seibt@fim.uni-passau.de>
+ */
+package de.fosd.jdime.matcher;
+
+import java.util.concurrent.RecursiveAction;
+
+import de.fosd.jdime.artifact.Artifact;
+import de.fosd.jdime.config.merge.MergeContext;
+import de.fosd.jdime.matcher.cost_model.CMMode;
+import de.fosd.jdime.matcher.cost_model.CostModelMatcher;
+import de.fosd.jdime.matcher.matching.Matchings;
+
+/**
+ * Computes the <code>Matchings</code> for all pairs of children of two <code>Artifact</code>s. Depending on the
+ * {@link MergeContext#isMatcherParallel()} and {@link MergeContext#getMatcherParallelMinSize()} options the pairs are
+ * matched sequentially or as fork/join tasks. In both cases the <code>Matchings</code> of the pair
+ * <code>(i, j)</code> are stored at index <code>[i][j]</code> of the resulting table so that its content does not
+ * depend on the order in which the tasks are executed. As the {@link CostModelMatcher} is not thread-safe, pairs are
+ * always matched sequentially if it is used in the {@link CMMode#INTEGRATED} mode. Pairs are also matched
+ * sequentially if a {@link MergeContext#getMatcherWorkBudget() work budget} is set, so that the budget is charged in
+ * a deterministic order.
+ * <p>
+ * Only matchers that match all child pairs up front use this class. The <code>SimpleTreeMatcher</code> matches child
+ * pairs lazily, as the DP requires them, if {@link MergeContext#isMatcherPruning() pruning}, the
+ * {@link MergeContext#getMatcherDiffMinChildren() hash alignment} or the {@link MergeContext#isMatcherLean() lean
+ * mode} is used. It then always matches them sequentially.
+ * <p>
+ * {@link #matchChildren(MergeContext, MatcherInterface, Artifact, Artifact, boolean)} can be asked to only retain the
+ * <code>Matchings</code> of pairs with a positive score. The entries of all other pairs are then <code>null</code>.
+ *
+ * @param <T>
+ *         the type of the <code>Artifact</code>s
+ */
+public final class ChildPairMatcher<T extends Artifact<T>> {
+
+    private final MergeContext context;
+    private final MatcherInterface<T> matcher;
+    private final T left;
+    private final T right;
+
+    private final Matchings<T>[][] table;
+
+    /**
+     * Whether only the <code>Matchings</code> of child pairs with a positive score are stored in the {@link #table}.
+     */
+    private final boolean positiveOnly;
+
+    /**
+     * The sizes of the trees rooted in the children of {@link #left} and {@link #right}. Only computed when
+     * matching in parallel.
+     */
+    private int[] leftSizes;
+    private int[] rightSizes;
+
+    /**
+     * Constructs a new <code>ChildPairMatcher</code>.
+     *
+     * @param context
+     *         the <code>MergeContext</code> of the merge operation
+     * @param matcher
+     *         the <code>MatcherInterface</code> to use for matching the child pairs
+     * @param left
+     *         the left <code>Artifact</code> whose children are to be matched
+     * @param right
+     *         the right <code>Artifact</code> whose children are to be matched
+     * @param positiveOnly
+     *         whether to only retain the <code>Matchings</code> of child pairs with a positive score
+     */
+    @SuppressWarnings("unchecked")
+    private ChildPairMatcher(MergeContext context, MatcherInterface<T> matcher, T left, T right, boolean positiveOnly) {
+        this.context = context;
+        this.matcher = matcher;
+        this.left = left;
+        this.right = right;
+        this.table = (Matchings<T>[][]) new Matchings<?>[left.getNumChildren()][right.getNumChildren()];
+        this.positiveOnly = positiveOnly;
+    }
+
+    /**
+     * Returns the <code>Matchings</code> for all pairs of children of <code>left</code> and <code>right</code>. The
+     * <code>Matchings</code> for the <code>i</code>-th child of <code>left</code> and the <code>j</code>-th child of
+     * <code>right</code> are stored at index <code>[i][j]</code>.
+     *
+     * @param context
+     *         the <code>MergeContext</code> of the merge operation
+     * @param matcher
+     *         the <code>MatcherInterface</code> to use for matching the child pairs
+     * @param left
+     *         the left <code>Artifact</code> whose children are to be matched
+     * @param right
+     *         the right <code>Artifact</code> whose children are to be matched
+     * @param <T>
+     *         the type of the <code>Artifact</code>s
+     * @return the table of <code>Matchings</code>
+     */
+    public static <T extends Artifact<T>> Matchings<T>[][] matchChildren(MergeContext context, MatcherInterface<T> matcher,
+                                                                         T left, T right) {
+        return matchChildren(context, matcher, left, right, false);
+    }
+
+    /**
+     * Returns the <code>Matchings</code> for all pairs of children of <code>left</code> and <code>right</code>. The
+     * <code>Matchings</code> for the <code>i</code>-th child of <code>left</code> and the <code>j</code>-th child of
+     * <code>right</code> are stored at index <code>[i][j]</code>. If <code>positiveOnly</code> is set, the entries of
+     * pairs with a score of 0 are <code>null</code> so that their <code>Matchings</code> are not retained.
+     *
+     * @param context
+     *         the <code>MergeContext</code> of the merge operation
+     * @param matcher
+     *         the <code>MatcherInterface</code> to use for matching the child pairs
+     * @param left
+     *         the left <code>Artifact</code> whose children are to be matched
+     * @param right
+     *         the right <code>Artifact</code> whose children are to be matched
+     * @param positiveOnly
+     *         whether to only retain the <code>Matchings</code> of child pairs with a positive score
+     * @param <T>
+     *         the type of the <code>Artifact</code>s
+     * @return the table of <code>Matchings</code>
+     */
+    public static <T extends Artifact<T>> Matchings<T>[][] matchChildren(MergeContext context, MatcherInterface<T> matcher,
+                                                                         T left, T right, boolean positiveOnly) {
+        ChildPairMatcher<T> pairMatcher = new ChildPairMatcher<>(context, matcher, left, right, positiveOnly);
+        pairMatcher.run();
+
+        return pairMatcher.table;
+    }
+
+    /**
+     * Matches all child pairs either sequentially or in parallel.
+     */
+    private void run() {
+        int m = left.getNumChildren();
+        int n = right.getNumChildren();
+
+        if (m * n > 1 && context.isMatcherParallel() && context.getCMMatcherMode() != CMMode.INTEGRATED
+                && context.getMatcherWorkBudget() == 0
+                && left.getTreeSize() + right.getTreeSize() >= context.getMatcherParallelMinSize()) {
+
+            leftSizes = left.getChildren().stream().mapToInt(Artifact::getTreeSize).toArray();
+            rightSizes = right.getChildren().stream().mapToInt(Artifact::getTreeSize).toArray();
+            new MatchTask(0, m * n).invoke();
+        } else {
+            match(0, m * n);
+        }
+    }
+
+    /**
+     * Sequentially matches the child pairs in the given range. The pair <code>(i, j)</code> has the index
+     * <code>i * n + j</code> where <code>n</code> is the number of children of {@link #right}.
+     *
+     * @param from
+     *         the index of the first pair (inclusive)
+     * @param to
+     *         the index of the last pair (exclusive)
+     */
+    private void match(int from, int to) {
+        int n = right.getNumChildren();
+
+        for (int k = from; k < to; k++) {
+            int i = k / n;
+            int j = k % n;
+            T leftChild = left.getChild(i);
+            T rightChild = right.getChild(j);
+            Matchings<T> matchings = matcher.match(context, leftChild, rightChild);
+
+            if (!positiveOnly || matchings.get(leftChild, rightChild).get().getScore() > 0) {
+                table[i][j] = matchings;
+            }
+        }
+    }
+
+    /**
+     * Estimates the work required for matching the child pairs in the given range by the sum of the sizes of the
+     * trees involved.
+     *
+     * @param from
+     *         the index of the first pair (inclusive)
+     * @param to
+     *         the index of the last pair (exclusive)
+     * @return the estimated work
+     */
+    private long work(int from, int to) {
+        int n = right.getNumChildren();
+        long work = 0;
+
+        for (int k = from; k < to; k++) {
+            work += leftSizes[k / n] + rightSizes[k % n];
+        }
+
+        return work;
+    }
+
+    /**
+     * Matches a range of child pairs. The range is split in half as long as it contains more than one pair and the
+     * estimated work is at least {@link MergeContext#getMatcherParallelMinSize()}.
+     */
+    private final class MatchTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+
+        private MatchTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+
+            if (to - from > 1 && work(from, to) >= context.getMatcherParallelMinSize()) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new MatchTask(from, mid), new MatchTask(mid, to));
+            } else {
+                match(from, to);
+            }
+        }
+    }
+}
@@ -0,0 +1,295 @@
+/**
+ * Copyright (C) 2013-2014 Olaf Lessenich
+ * Copyright (C) 2014-2017 University of Passau, Germany
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ * Contributors:
+ *     Olaf Lessenich <lessenic@fim.uni-passau.de>
+ *     Georg Seibt <seibt@fim.uni-passau.de>
+ */
+package de.fosd.jdime.matcher;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import de.fosd.jdime.artifact.Artifact;
+import de.fosd.jdime.artifact.Artifacts;
+import de.fosd.jdime.artifact.TreeHash;
+import de.fosd.jdime.matcher.matching.LookAheadMatching;
+import de.fosd.jdime.matcher.matching.Matching;
+import de.fosd.jdime.matcher.matching.Matchings;
+import de.fosd.jdime.util.Tuple;
+
+/**
+ * Caches the <code>Matchings</code> computed for pairs of {@link Artifact} trees by the pair of their
+ * {@link Artifact#getTreeHash() tree hashes}. Two trees having the same tree hash are isomorphic. The
+ * <code>Matchings</code> computed for one pair of trees can therefore be re-instantiated onto any other pair of trees
+ * having the same two tree hashes instead of running the concrete matchers again.
+ * <p>
+ * The first <code>Matchings</code> stored for a pair of tree hashes are only converted into a template (storing the
+ * position of the matched artifacts in the DFS order of the two trees) once the pair of tree hashes is encountered
+ * again.
+ * <p>
+ * The methods of this class are synchronized as the {@link Matcher} may match pairs of children in parallel.
+ *
+ * @param <T>
+ *         the type of the <code>Artifact</code>s
+ */
+class IsomorphismCache<T extends Artifact<T>> {
+
+    /**
+     * A template of the <code>Matchings</code> between two trees. Artifacts are identified by their index in the
+     * DFS order of their tree.
+     */
+    private static final class Template {
+
+        private final int[] left;
+        private final int[] right;
+        private final int[] lookAheadLeft;
+        private final int[] lookAheadRight;
+        private final int[] scores;
+        private final String[] algorithms;
+
+        private Template(int size) {
+            this.left = new int[size];
+            this.right = new int[size];
+            this.lookAheadLeft = new int[size];
+            this.lookAheadRight = new int[size];
+            this.scores = new int[size];
+            this.algorithms = new String[size];
+        }
+    }
+
+    /**
+     * The roots and <code>Matchings</code> that were first stored for a pair of tree hashes and have not yet been
+     * converted to a {@link Template}.
+     */
+    private final Map<Tuple<TreeHash, TreeHash>, Tuple<Tuple<T, T>, Matchings<T>>> firstSeen;
+
+    /**
+     * The templates of <code>Matchings</code> by their pair of tree hashes. Pairs whose <code>Matchings</code> could
+     * not be converted to a template are mapped to <code>null</code>.
+     */
+    private final Map<Tuple<TreeHash, TreeHash>, Template> templates;
+
+    /**
+     * Constructs a new empty {@link IsomorphismCache}.
+     *
+     * @param maxSize
+     *         the maximum number of pairs of tree hashes to store <code>Matchings</code> or templates for, once it is
+     *         exceeded the least recently used entries are evicted
+     */
+    IsomorphismCache(int maxSize) {
+        this.firstSeen = lruMap(maxSize);
+        this.templates = lruMap(maxSize);
+    }
+
+    /**
+     * Creates a <code>LinkedHashMap</code> in access order that evicts its least recently used entry once it contains
+     * more than <code>maxSize</code> entries.
+     *
+     * @param maxSize
+     *         the maximum number of entries
+     * @param <K>
+     *         the type of the keys
+     * @param <V>
+     *         the type of the values
+     * @return the new <code>Map</code>
+     */
+    private static <K, V> Map<K, V> lruMap(int maxSize) {
+        return new LinkedHashMap<K, V>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Optionally returns <code>Matchings</code> for <code>left</code> and <code>right</code> re-instantiated from
+     * those stored for another pair of trees having the same tree hashes.
+     *
+     * @param left
+     *         the left tree
+     * @param right
+     *         the right tree
+     * @return the re-instantiated <code>Matchings</code> or <code>null</code> if none are available
+     */
+    Matchings<T> get(T left, T right) {
+        Template template = getTemplate(Tuple.of(left.getTreeHash(), right.getTreeHash()));
+
+        if (template == null) {
+            return null;
+        }
+
+        return instantiate(template, left, right);
+    }
+
+    /**
+     * Returns the template stored for the given pair of tree hashes. If there is none, but <code>Matchings</code>
+     * were stored for the pair, they are converted to a template first.
+     *
+     * @param key
+     *         the pair of tree hashes
+     * @return the <code>Template</code> or <code>null</code> if none is available
+     */
+    private synchronized Template getTemplate(Tuple<TreeHash, TreeHash> key) {
+        Template template = templates.get(key);
+
+        if (template == null) {
+            Tuple<Tuple<T, T>, Matchings<T>> first = firstSeen.remove(key);
+
+            if (first != null) {
+                template = toTemplate(first.x.x, first.x.y, first.y);
+                templates.put(key, template);
+            }
+        }
+
+        return template;
+    }
+
+    /**
+     * Stores the <code>Matchings</code> computed for <code>left</code> and <code>right</code>.
+     *
+     * @param left
+     *         the left tree
+     * @param right
+     *         the right tree
+     * @param matchings
+     *         the <code>Matchings</code> of the two trees, they must not be modified afterwards
+     */
+    synchronized void put(T left, T right, Matchings<T> matchings) {
+        Tuple<TreeHash, TreeHash> key = Tuple.of(left.getTreeHash(), right.getTreeHash());
+
+        if (!templates.containsKey(key)) {
+            firstSeen.putIfAbsent(key, Tuple.of(Tuple.of(left, right), matchings));
+        }
+    }
+
+    /**
+     * Converts the given <code>Matchings</code> of <code>left</code> and <code>right</code> into a {@link Template}.
+     *
+     * @param left
+     *         the left tree
+     * @param right
+     *         the right tree
+     * @param matchings
+     *         the <code>Matchings</code> to convert
+     * @return the <code>Template</code> or <code>null</code> if <code>matchings</code> contains artifacts from
+     *         outside of the two trees
+     */
+    private Template toTemplate(T left, T right, Matchings<T> matchings) {
+        Map<T, Integer> leftIndices = dfsIndices(left);
+        Map<T, Integer> rightIndices = dfsIndices(right);
+
+        // iterate over a copy as the matchings may be shared (and must therefore not be flattened)
+        Matchings<T> copy = new Matchings<>();
+        copy.addMatchings(matchings);
+
+        Template template = new Template(copy.size());
+        int i = 0;
+
+        for (Matching<T> matching : copy) {
+            Integer l = leftIndices.get(matching.getLeft());
+            Integer r = rightIndices.get(matching.getRight());
+
+            if (l == null || r == null) {
+                return null;
+            }
+
+            template.left[i] = l;
+            template.right[i] = r;
+            template.lookAheadLeft[i] = -1;
+            template.lookAheadRight[i] = -1;
+
+            if (matching instanceof LookAheadMatching) {
+                Integer laL = leftIndices.get(matching.getMatchedArtifacts().getX());
+                Integer laR = rightIndices.get(matching.getMatchedArtifacts().getY());
+
+                if (laL == null || laR == null) {
+                    return null;
+                }
+
+                template.lookAheadLeft[i] = laL;
+                template.lookAheadRight[i] = laR;
+            }
+
+            template.scores[i] = matching.getScore();
+            template.algorithms[i] = matching.getAlgorithm();
+            i++;
+        }
+
+        return template;
+    }
+
+    /**
+     * Re-instantiates the given <code>template</code> onto the trees <code>left</code> and <code>right</code>.
+     *
+     * @param template
+     *         the <code>Template</code> to instantiate
+     * @param left
+     *         the left tree
+     * @param right
+     *         the right tree
+     * @return the resulting <code>Matchings</code>
+     */
+    private Matchings<T> instantiate(Template template, T left, T right) {
+        List<T> leftNodes = Artifacts.dfs(left);
+        List<T> rightNodes = Artifacts.dfs(right);
+        Matchings<T> matchings = new Matchings<>();
+
+        for (int i = 0; i < template.scores.length; i++) {
+            Matching<T> matching = new Matching<>(leftNodes.get(template.left[i]), rightNodes.get(template.right[i]),
+                                                  template.scores[i]);
+            matching.setAlgorithm(template.algorithms[i]);
+
+            if (template.lookAheadLeft[i] != -1) {
+                T laLeft = leftNodes.get(template.lookAheadLeft[i]);
+                T laRight = rightNodes.get(template.lookAheadRight[i]);
+
+                matching = new LookAheadMatching<>(matching, laLeft, laRight);
+            }
+
+            matchings.add(matching);
+        }
+
+        return matchings;
+    }
+
+    /**
+     * Returns the indices of the artifacts of the tree rooted in <code>root</code> in DFS order.
+     *
+     * @param root
+     *         the root of the tree
+     * @return the indices of the artifacts
+     */
+    private Map<T, Integer> dfsIndices(T root) {
+        Map<T, Integer> indices = new HashMap<>();
+        int i = 0;
+
+        for (T node : Artifacts.dfsIterable(root)) {
+            indices.put(node, i++);
+        }
+
+        return indices;
+    }
+}
@@ -0,0 +1,181 @@
+/**
+ * Copyright (C) 2013-2014 Olaf Lessenich
+ * Copyright (C) 2014-2017 University of Passau, Germany
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ * Contributors:
+ *     Olaf Lessenich <lessenic@fim.uni-passau.de>
+ *     Georg Seibt <seibt@fim.uni-passau.de>
+ */
+package de.fosd.jdime.matcher;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import de.fosd.jdime.artifact.Artifact;
+
+/**
+ * Indexes the nodes of an {@link Artifact} tree by their {@link Artifact#getMatchKey() match keys} so that the
+ * look-ahead of the {@link Matcher} can find the first node in a subtree matching another node without searching the
+ * whole subtree. Every node is stored with its index in the DFS (pre-)order of the tree and its depth. The nodes of a
+ * subtree occupy a contiguous range of indices, the nodes having the same key are stored in DFS order.
+ *
+ * @param <T>
+ *         the type of the <code>Artifact</code>s
+ */
+class LookAheadIndex<T extends Artifact<T>> {
+
+    /**
+     * A node of the tree and its position.
+     *
+     * @param <T>
+     *         the type of the <code>Artifact</code>s
+     */
+    private static final class Node<T> {
+
+        private final T artifact;
+        private final int index;
+        private final int depth;
+
+        private Node(T artifact, int index, int depth) {
+            this.artifact = artifact;
+            this.index = index;
+            this.depth = depth;
+        }
+    }
+
+    /**
+     * The nodes of the tree by their match key, each list is in DFS order.
+     */
+    private final Map<Object, List<Node<T>>> byKey;
+
+    /**
+     * The nodes of the tree by their identity.
+     */
+    private final Map<T, Node<T>> byArtifact;
+
+    /**
+     * Whether every node of the tree has a match key.
+     */
+    private boolean complete;
+
+    /**
+     * Constructs a new <code>LookAheadIndex</code> for the tree rooted in <code>root</code>.
+     *
+     * @param root
+     *         the root of the tree to index
+     */
+    LookAheadIndex(T root) {
+        this.byKey = new HashMap<>();
+        this.byArtifact = new IdentityHashMap<>();
+        this.complete = true;
+
+        add(root, 0);
+    }
+
+    /**
+     * Adds the nodes of the tree rooted in <code>artifact</code> to the index.
+     *
+     * @param artifact
+     *         the root of the tree to add
+     * @param depth
+     *         the depth of <code>artifact</code>
+     */
+    private void add(T artifact, int depth) {
+        Node<T> node = new Node<>(artifact, byArtifact.size(), depth);
+        Object key = artifact.getMatchKey();
+
+        byArtifact.put(artifact, node);
+
+        if (key != null) {
+            byKey.computeIfAbsent(key, k -> new ArrayList<>()).add(node);
+        } else {
+            complete = false;
+        }
+
+        for (T child : artifact.getChildren()) {
+            add(child, depth + 1);
+        }
+    }
+
+    /**
+     * Returns whether this index can be used for finding nodes in the subtree rooted in <code>tree</code> matching
+     * <code>nodeToFind</code>.
+     *
+     * @param tree
+     *         the root of the subtree to search in
+     * @param nodeToFind
+     *         the node to find a match for
+     * @return true iff {@link #find(Artifact, Artifact, int)} may be used
+     */
+    boolean supports(T tree, T nodeToFind) {
+        return complete && nodeToFind.getMatchKey() != null && byArtifact.containsKey(tree);
+    }
+
+    /**
+     * Returns the first node in DFS order of the subtree rooted in <code>tree</code> that matches
+     * <code>nodeToFind</code> as per the {@link Artifact#matches(Artifact)} method and whose depth relative to
+     * <code>tree</code> is at most <code>maxDepth</code>.
+     *
+     * @param tree
+     *         the root of the subtree to search in, it must be part of the indexed tree
+     * @param nodeToFind
+     *         the node to find a match for
+     * @param maxDepth
+     *         the maximum depth of nodes to consider (<code>tree</code> is at depth 0)
+     * @return optionally a matching node for <code>nodeToFind</code>
+     */
+    Optional<T> find(T tree, T nodeToFind, int maxDepth) {
+        List<Node<T>> candidates = byKey.getOrDefault(nodeToFind.getMatchKey(), Collections.emptyList());
+
+        if (maxDepth < 0 || candidates.isEmpty()) {
+            return Optional.empty();
+        }
+
+        Node<T> root = byArtifact.get(tree);
+        int end = root.index + tree.getTreeSize();
+
+        // binary search for the first candidate whose index is not smaller than that of the root
+        int lo = 0;
+        int hi = candidates.size();
+
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+
+            if (candidates.get(mid).index < root.index) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+
+        for (int i = lo; i < candidates.size() && candidates.get(i).index < end; i++) {
+            Node<T> candidate = candidates.get(i);
+
+            if (candidate.depth - root.depth <= maxDepth && candidate.artifact.matches(nodeToFind)) {
+                return Optional.of(candidate.artifact);
+            }
+        }
+
+        return Optional.empty();
+    }
+}
@@ -23,14 +23,23 @@
  */
 package de.fosd.jdime.matcher;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.ListIterator;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import de.fosd.jdime.artifact.Artifact;
+import de.fosd.jdime.artifact.Artifacts;
 import de.fosd.jdime.config.merge.MergeContext;
 import de.fosd.jdime.config.merge.Revision;
 import de.fosd.jdime.matcher.cost_model.CMMode;
@@ -41,13 +50,18 @@ import de.fosd.jdime.matcher.matching.Matching;
 import de.fosd.jdime.matcher.matching.Matchings;
 import de.fosd.jdime.matcher.ordered.EqualityMatcher;
 import de.fosd.jdime.matcher.ordered.OrderedMatcher;
+import de.fosd.jdime.matcher.ordered.PositionalMatcher;
 import de.fosd.jdime.matcher.ordered.mceSubtree.MCESubtreeMatcher;
 import de.fosd.jdime.matcher.ordered.simpleTree.SimpleTreeMatcher;
 import de.fosd.jdime.matcher.unordered.IdenticalSubtreeMatcher;
 import de.fosd.jdime.matcher.unordered.UniqueLabelMatcher;
 import de.fosd.jdime.matcher.unordered.UnorderedMatcher;
+import de.fosd.jdime.matcher.unordered.assignmentProblem.AssignmentSolver;
 import de.fosd.jdime.matcher.unordered.assignmentProblem.HungarianMatcher;
+import de.fosd.jdime.matcher.unordered.assignmentProblem.ShortestAugmentingPathMatcher;
+import de.fosd.jdime.stats.AlgorithmStatistics;
 import de.fosd.jdime.stats.KeyEnums;
+import de.fosd.jdime.stats.MatcherStatistics;
 import de.fosd.jdime.strdump.DumpMode;
 import de.fosd.jdime.util.UnorderedTuple;
 
@@ -83,9 +97,11 @@ public class Matcher<T extends Artifact<T>> {
     private static final String ID = Matcher.class.getSimpleName();
 
     private UnorderedMatcher<T> unorderedMatcher;
+    private UnorderedMatcher<T> unorderedSAPMatcher;
     private UnorderedMatcher<T> unorderedLabelMatcher;
-    private OrderedMatcher<T> orderedMatcher;
+    private SimpleTreeMatcher<T> orderedMatcher;
     private OrderedMatcher<T> mceSubtreeMatcher;
+    private OrderedMatcher<T> positionalMatcher;
 
     private IdenticalSubtreeMatcher<T> idSubtreeMatcher;
 
@@ -94,9 +110,67 @@ public class Matcher<T extends Artifact<T>> {
     private T leftRoot;
     private T rightRoot;
 
-    private Map<T, MatcherCache<T>> caches;
-    private MatcherCache<T> leftCache;
-    private MatcherCache<T> rightCache;
+    /**
+     * The <code>Revision</code> of the base tree whose matchings with the left and right trees are used to seed the
+     * matching, <code>null</code> if there is none.
+     */
+    private Revision baseRevision;
+
+    /**
+     * The nodes of the left and right trees whose counterpart in the other tree was determined by composing their
+     * matchings with the base tree during the current run of {@link #match(MergeContext, Color)}. <code>null</code>
+     * if seeding is not used.
+     */
+    private Map<T, T> leftSeeds;
+    private Map<T, T> rightSeeds;
+
+    /**
+     * The <code>Matchings</code> computed during the current run of {@link #match(MergeContext, Color)} by the
+     * artifact pairs they were computed for. <code>null</code> if the memo is disabled or no run is in progress.
+     */
+    private Map<UnorderedTuple<T, T>, Matchings<T>> memo;
+    private AtomicInteger memoHits;
+    private AtomicInteger memoMisses;
+
+    /**
+     * The <code>Matchings</code> computed during the current run of {@link #match(MergeContext, Color)} by the tree
+     * hashes of the artifact pairs they were computed for. <code>null</code> if the memo is disabled or no run is in
+     * progress. The cache is not used while seeding since the seeds depend on the identity of the nodes rather than
+     * on their trees. <code>Matchings</code> completed after the {@link #budget} was exhausted are not cached since
+     * they may contain degraded results.
+     */
+    private IsomorphismCache<T> isoCache;
+    private AtomicInteger isoHits;
+
+    private AtomicInteger idSubtreeHits;
+    private AtomicInteger idSubtreeMisses;
+
+    /**
+     * The indices of the left and right trees used by the look-ahead during the current run of
+     * {@link #match(MergeContext, Color)}. They are built when first needed, <code>null</code> before that.
+     */
+    private LookAheadIndex<T> leftIndex;
+    private LookAheadIndex<T> rightIndex;
+
+    /**
+     * The budget charged for the pairs of children considered by the expensive matchers during the current run of
+     * {@link #match(MergeContext, Color)} and the descriptions of the pairs of nodes that were matched by the
+     * <code>PositionalMatcher</code> instead because the budget was exhausted.
+     */
+    private MatcherBudget budget;
+    private List<String> degradedNodes;
+
+    /**
+     * The statistics for the matching algorithms used during the current run of {@link #match(MergeContext, Color)}
+     * by their names. <code>null</code> if statistics are disabled or no run is in progress.
+     */
+    private Map<String, AlgorithmStatistics> algorithmStats;
+
+    /**
+     * For every thread, the time in nanoseconds spent in the matching algorithms invoked (and finished) on it. Used
+     * to exclude the time spent in nested invocations from the time of an algorithm.
+     */
+    private final ThreadLocal<long[]> nestedTime = ThreadLocal.withInitial(() -> new long[1]);
 
     /**
      * Constructs a new {@link Matcher} matching the given trees.
@@ -114,46 +188,36 @@ public class Matcher<T extends Artifact<T>> {
         };
 
         this.unorderedMatcher = new HungarianMatcher<>(rootMatcher);
+        this.unorderedSAPMatcher = new ShortestAugmentingPathMatcher<>(rootMatcher);
         this.unorderedLabelMatcher = new UniqueLabelMatcher<>(rootMatcher);
         this.orderedMatcher = new SimpleTreeMatcher<>(rootMatcher);
         this.mceSubtreeMatcher = new MCESubtreeMatcher<>(rootMatcher);
+        this.positionalMatcher = new PositionalMatcher<>(rootMatcher);
 
         this.idSubtreeMatcher = new IdenticalSubtreeMatcher<>();
         this.cmMatcher = new CostModelMatcher<>();
 
         this.leftRoot = leftRoot;
         this.rightRoot = rightRoot;
-
-        this.caches = new HashMap<>();
     }
 
     /**
-     * Constructs a new {@link Matcher} matching the given trees. All caches from {@code oldMatcher} will be reused.
+     * Constructs a new {@link Matcher} matching the given trees. If enabled by
+     * {@link MergeContext#isMatcherBaseSeeding()}, nodes whose subtrees are unchanged with respect to the tree of the
+     * given base <code>Revision</code> in both trees are only matched with their counterpart in the other tree. The
+     * counterpart is determined by composing the matchings with the base tree that are already stored in the
+     * artifacts.
      *
-     * @param oldMatcher
-     *         the {@link Matcher} whose caches are to be reused, for convenience it may be {@code null} in which case
-     *         it is ignored
      * @param leftRoot
      *         the root of the left tree
      * @param rightRoot
      *         the root of the right tree
+     * @param baseRevision
+     *         the <code>Revision</code> of the base tree both trees were already matched with
      */
-    public Matcher(Matcher<T> oldMatcher, T leftRoot, T rightRoot) {
+    public Matcher(T leftRoot, T rightRoot, Revision baseRevision) {
         this(leftRoot, rightRoot);
-
-        if (oldMatcher != null) {
-            this.caches.putAll(oldMatcher.caches);
-        }
-    }
-
-    /**
-     * Removes all cached data concerning the given tree.
-     *
-     * @param root
-     *         the root of the tree whose cached information is the be removed
-     */
-    public void removeCache(T root) {
-        caches.remove(root);
+        this.baseRevision = baseRevision;
     }
 
     /**
@@ -168,21 +232,69 @@ public class Matcher<T extends Artifact<T>> {
      */
     public Matchings<T> match(MergeContext context, Color color) {
         Matchings<T> matchings;
+        long treeCells = (long) leftRoot.getTreeSize() * rightRoot.getTreeSize();
+
+        memoHits = new AtomicInteger();
+        memoMisses = new AtomicInteger();
+        isoHits = new AtomicInteger();
+        idSubtreeHits = new AtomicInteger();
+        idSubtreeMisses = new AtomicInteger();
+        algorithmStats = context.hasStatistics() ? new ConcurrentHashMap<>() : null;
+
+        budget = context.getMatcherBudget() != null ? context.getMatcherBudget() : MatcherBudget.of(context);
+        degradedNodes = Collections.synchronizedList(new ArrayList<>());
 
         if (context.getCMMatcherMode() == CMMode.REPLACEMENT) {
-            matchings = cmMatcher.match(context, leftRoot, rightRoot);
+            matchings = instrumented(cmMatcher.getClass(), treeCells, () -> cmMatcher.match(context, leftRoot, rightRoot));
         } else {
-            leftCache = caches.computeIfAbsent(leftRoot, i -> new MatcherCache<>());
-            rightCache = caches.computeIfAbsent(rightRoot, i -> new MatcherCache<>());
-            idSubtreeMatcher.matchTrees(leftRoot, rightRoot);
+            instrumented(idSubtreeMatcher.getClass(), treeCells, () -> {
+                idSubtreeMatcher.matchTrees(leftRoot, rightRoot);
+                return null;
+            });
+
+            memo = newMemo(context.getMatcherMemoSize());
+            isoCache = memo != null ? new IsomorphismCache<>(context.getMatcherMemoSize()) : null;
+
+            if (baseRevision != null && context.isMatcherBaseSeeding()) {
+                leftSeeds = new IdentityHashMap<>();
+                rightSeeds = new IdentityHashMap<>();
+                seed(leftRoot);
+            }
 
             matchings = match(context, leftRoot, rightRoot);
 
+            memo = null;
+            isoCache = null;
+            leftIndex = null;
+            rightIndex = null;
+            leftSeeds = null;
+            rightSeeds = null;
+
             if (context.getCMMatcherMode() == CMMode.POST_PROCESSOR && matchings.get(leftRoot, rightRoot).map(m -> !m.hasFullyMatched()).orElse(true)) {
-                matchings = cmMatcher.match(context, leftRoot, rightRoot, matchings);
+                Matchings<T> fixed = matchings;
+                matchings = instrumented(cmMatcher.getClass(), treeCells, () -> cmMatcher.match(context, leftRoot, rightRoot, fixed));
             }
         }
 
+        int prunedPairs = orderedMatcher.getAndResetPrunedPairs();
+
+        if (context.hasStatistics()) {
+            MatcherStatistics stats = context.getStatistics().getCurrentFileMergeScenarioStatistics().getMatcherStatistics();
+
+            stats.incrementMemoHits(memoHits.get());
+            stats.incrementMemoMisses(memoMisses.get());
+            stats.incrementIsomorphismHits(isoHits.get());
+            stats.incrementPrunedPairs(prunedPairs);
+            stats.incrementIdenticalSubtreeHits(idSubtreeHits.get());
+            stats.incrementIdenticalSubtreeMisses(idSubtreeMisses.get());
+            stats.addDegradedNodes(degradedNodes);
+            algorithmStats.forEach((label, algorithm) -> stats.getAlgorithmStatistics(label).add(algorithm));
+        }
+
+        algorithmStats = null;
+        budget = null;
+        degradedNodes = null;
+
         matchings.get(leftRoot, rightRoot).ifPresent(m ->
             LOG.finer(() -> {
                 Revision lRev = leftRoot.getRevision();
@@ -193,6 +305,10 @@ public class Matcher<T extends Artifact<T>> {
 
         storeMatchings(context, matchings, color);
 
+        if (!context.isUsePercentage()) {
+            calculateRelevance();
+        }
+
         if (LOG.isLoggable(Level.FINEST)) {
             Revision lRev = leftRoot.getRevision();
             Revision rRev = rightRoot.getRevision();
@@ -209,10 +325,73 @@ public class Matcher<T extends Artifact<T>> {
     }
 
     /**
+     * Creates the memo to be used for one run of {@link #match(MergeContext, Color)}. Once the memo contains
+     * <code>maxSize</code> entries, the least recently used one is evicted when a new one is added. The memo is
+     * synchronized as pairs of children may be matched in parallel.
+     *
+     * @param maxSize
+     *         the maximum number of entries of the memo
+     * @return the new memo or <code>null</code> if <code>maxSize</code> is not positive
+     */
+    private Map<UnorderedTuple<T, T>, Matchings<T>> newMemo(int maxSize) {
+
+        if (maxSize <= 0) {
+            return null;
+        }
+
+        return Collections.synchronizedMap(new LinkedHashMap<UnorderedTuple<T, T>, Matchings<T>>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UnorderedTuple<T, T>, Matchings<T>> eldest) {
+                return size() > maxSize;
+            }
+        });
+    }
+
+    /**
+     * Returns the <code>Matchings</code> of <code>left</code> and <code>right</code>. If they were already computed
+     * during the current run, the memoized <code>Matchings</code> are returned. The returned <code>Matchings</code>
+     * may therefore be shared between threads and must not be modified (other than being flattened or indexed
+     * implicitly, which <code>Matchings</code> synchronizes).
+     *
      * @see MatcherInterface#match(MergeContext, Artifact, Artifact)
      */
     private Matchings<T> match(MergeContext context, T left, T right) {
 
+        if (memo == null) {
+            return computeMatchings(context, left, right);
+        }
+
+        UnorderedTuple<T, T> pair = UnorderedTuple.of(left, right);
+        Matchings<T> matchings = memo.get(pair);
+
+        if (matchings != null) {
+            memoHits.incrementAndGet();
+            return matchings;
+        }
+
+        memoMisses.incrementAndGet();
+        matchings = computeMatchings(context, left, right);
+        memo.put(pair, matchings);
+
+        return matchings;
+    }
+
+    /**
+     * Computes the <code>Matchings</code> of <code>left</code> and <code>right</code>.
+     *
+     * @param context
+     *         the <code>MergeContext</code>
+     * @param left
+     *         the left tree
+     * @param right
+     *         the right tree
+     * @return the <code>Matchings</code>
+     */
+    private Matchings<T> computeMatchings(MergeContext context, T left, T right) {
+
         if (left.isConflict()) {
             Matchings<T> m = Matchings.of(left, right, 0);
             m.get(left, right).get().setAlgorithm(ID);
@@ -252,6 +431,16 @@ public class Matcher<T extends Artifact<T>> {
             return maxMatching;
         }
 
+        // seeded nodes may be identical to other nodes than their counterparts, so the seeds are checked first
+        if (leftSeeds != null && !isSeededPair(left, right)) {
+            LOG.finest(() -> String.format("%s - %s and %s are seeded with other nodes", ID, left.getId(), right.getId()));
+
+            Matchings<T> m = Matchings.of(left, right, 0);
+            m.get(left, right).get().setAlgorithm(ID);
+
+            return m;
+        }
+
         /*
          * Before firing up potentially expensive matching algorithms, we check whether the trees are identical.
          * To avoid redundant calls, we save the matchings reported by EqualityMatcher and perform lookups on
@@ -270,7 +459,9 @@ public class Matcher<T extends Artifact<T>> {
             if (resumeTuple.isPresent()) {
                 UnorderedTuple<T, T> toMatch = resumeTuple.get();
 
-                Matchings<T> subMatchings = getMatchings(context, toMatch.getX(), toMatch.getY());
+                // the Matchings may be shared by the IsomorphismCache and must therefore be copied before modifying them
+                @SuppressWarnings("unchecked")
+                Matchings<T> subMatchings = (Matchings<T>) getMatchings(context, toMatch.getX(), toMatch.getY()).clone();
                 Matching<T> subMatching = subMatchings.get(toMatch.getX(), toMatch.getY()).orElseThrow(() -> new RuntimeException("Hilfe"));
 
                 Matching<T> lookAheadMatching = new LookAheadMatching<>(subMatching, left, right);
@@ -300,6 +491,54 @@ public class Matcher<T extends Artifact<T>> {
         return getMatchings(context, left, right);
     }
 
+    /**
+     * Determines the counterparts of the nodes of the tree rooted in <code>left</code> by composing their matchings
+     * with the base tree. A node and its counterpart are stored in {@link #leftSeeds} and {@link #rightSeeds} if both
+     * their subtrees are identical to that of their base node. The children of seeded nodes are not examined.
+     *
+     * @param left
+     *         the root of the (sub-)tree of the left tree to seed
+     */
+    private void seed(T left) {
+        Matching<T> toBase = left.getMatching(baseRevision);
+
+        if (toBase != null) {
+            T base = toBase.getMatchingArtifact(left);
+            Matching<T> toRight = base.getMatching(rightRoot.getRevision());
+
+            if (toRight != null) {
+                T right = toRight.getMatchingArtifact(base);
+
+                if (left.getTreeHash().equals(base.getTreeHash()) && right.getTreeHash().equals(base.getTreeHash())) {
+                    leftSeeds.put(left, right);
+                    rightSeeds.put(right, left);
+                    return;
+                }
+            }
+        }
+
+        for (T child : left.getChildren()) {
+            seed(child);
+        }
+    }
+
+    /**
+     * Returns whether <code>left</code> and <code>right</code> may be matched given the seeds of the current run. This
+     * is the case if neither of them is seeded or they are seeded with each other.
+     *
+     * @param left
+     *         the left tree
+     * @param right
+     *         the right tree
+     * @return true iff the pair is not excluded by the seeds
+     */
+    private boolean isSeededPair(T left, T right) {
+        T leftSeed = leftSeeds.get(left);
+        T rightSeed = rightSeeds.get(right);
+
+        return (leftSeed == null || leftSeed == right) && (rightSeed == null || rightSeed == left);
+    }
+
     /**
      * Returns the trivial Matchings if <code>left</code> and <code>right</code> are exactly equal as determined by
      * the <code>IdenticalSubtreeMatcher</code>.
@@ -314,12 +553,49 @@ public class Matcher<T extends Artifact<T>> {
      */
     private Optional<Matchings<T>> getTrivialMatchings(MergeContext context, T left, T right) {
         if (idSubtreeMatcher.hasMatched(left, right)) {
+            idSubtreeHits.incrementAndGet();
             return Optional.of(idSubtreeMatcher.match(context, left, right));
         } else {
+            idSubtreeMisses.incrementAndGet();
             return Optional.empty();
         }
     }
 
+    /**
+     * Runs the given <code>matcher</code> and, if statistics are enabled, records the invocation of the
+     * <code>algorithm</code> in {@link #algorithmStats}. The time recorded for the algorithm does not include the time
+     * spent in nested invocations of algorithms on the same thread.
+     *
+     * @param algorithm
+     *         the class of the algorithm
+     * @param cells
+     *         the size of the problem the algorithm is invoked for
+     * @param matcher
+     *         runs the algorithm
+     * @return the result of <code>matcher</code>
+     */
+    private Matchings<T> instrumented(Class<?> algorithm, long cells, Supplier<Matchings<T>> matcher) {
+        Map<String, AlgorithmStatistics> stats = algorithmStats;
+
+        if (stats == null) {
+            return matcher.get();
+        }
+
+        long[] nested = nestedTime.get();
+        long nestedBefore = nested[0];
+        long start = System.nanoTime();
+
+        Matchings<T> matchings = matcher.get();
+
+        long time = System.nanoTime() - start;
+        long nestedDuring = nested[0] - nestedBefore;
+
+        nested[0] = nestedBefore + time;
+        stats.computeIfAbsent(algorithm.getSimpleName(), AlgorithmStatistics::new).record(cells, time - nestedDuring);
+
+        return matchings;
+    }
+
     /**
      * Determines which <code>Matcher</code> to use for matching <code>left</code> and <code>right</code> and returns
      * the resulting <code>Matchings</code>.
@@ -336,30 +612,57 @@ public class Matcher<T extends Artifact<T>> {
         boolean fullyOrderedChildren = false;
 
         if (context.isUseMCESubtreeMatcher()) {
-            boolean leftOrdered = left.getChildren().stream().allMatch(c -> leftCache.fullyOrdered(c));
-            boolean rightOrdered = right.getChildren().stream().allMatch(c -> rightCache.fullyOrdered(c));
+            boolean leftOrdered = left.getChildren().stream().allMatch(T::isFullyOrdered);
+            boolean rightOrdered = right.getChildren().stream().allMatch(T::isFullyOrdered);
             fullyOrderedChildren = leftOrdered && rightOrdered;
         }
 
-        boolean onlyOrderedChildren = leftCache.orderedChildren(left) && rightCache.orderedChildren(right);
-        boolean onlyLabeledChildren = leftCache.uniquelyLabeledChildren(left) && rightCache.uniquelyLabeledChildren(right);
+        boolean onlyOrderedChildren = left.hasOrderedChildren() && right.hasOrderedChildren();
+        boolean onlyLabeledChildren = left.hasUniquelyLabeledChildren() && right.hasUniquelyLabeledChildren();
 
-        Matchings<T> matchings;
+        // a template may pair seeded nodes with nodes other than their counterparts when it is re-instantiated
+        boolean isoCacheable = isoCache != null && leftSeeds == null && left.hasChildren() && right.hasChildren();
+        Matchings<T> matchings = isoCacheable ? isoCache.get(left, right) : null;
 
-        if (fullyOrderedChildren && context.isUseMCESubtreeMatcher()) {
-            logMatcherUse(mceSubtreeMatcher.getClass(), left, right);
-            matchings = mceSubtreeMatcher.match(context, left, right);
-        } else if (onlyOrderedChildren) {
-            logMatcherUse(orderedMatcher.getClass(), left, right);
-            matchings = orderedMatcher.match(context, left, right);
+        if (matchings != null) {
+            isoHits.incrementAndGet();
+            logMatcherUse(IsomorphismCache.class, left, right);
         } else {
-            if (onlyLabeledChildren) {
-                logMatcherUse(unorderedLabelMatcher.getClass(), left, right);
-                matchings = unorderedLabelMatcher.match(context, left, right);
+            MatcherInterface<T> chosen;
+
+            if (fullyOrderedChildren && context.isUseMCESubtreeMatcher()) {
+                chosen = mceSubtreeMatcher;
+            } else if (onlyOrderedChildren) {
+                chosen = orderedMatcher;
+            } else if (onlyLabeledChildren) {
+                chosen = unorderedLabelMatcher;
+            } else if (context.getMatcherAssignmentSolver() == AssignmentSolver.SHORTEST_PATH) {
+                chosen = unorderedSAPMatcher;
             } else {
-                logMatcherUse(unorderedMatcher.getClass(), left, right);
-                matchings = unorderedMatcher.match(context, left, right);
+                chosen = unorderedMatcher;
             }
+
+            long cells = (long) left.getNumChildren() * right.getNumChildren();
+
+            if (chosen != unorderedLabelMatcher && !budget.charge(cells)) {
+                String skipped = chosen.getClass().getSimpleName();
+
+                LOG.fine(() -> String.format("Work budget exhausted, using %s instead of %s for %s and %s",
+                        positionalMatcher.getClass().getSimpleName(), skipped, left.getId(), right.getId()));
+
+                chosen = positionalMatcher;
+                degradedNodes.add(String.format("%s - %s (%s)", left.getId(), right.getId(), left.getType()));
+            }
+
+            MatcherInterface<T> matcher = chosen;
+
+            logMatcherUse(matcher.getClass(), left, right);
+            matchings = instrumented(matcher.getClass(), cells, () -> matcher.match(context, left, right));
+        }
+
+        // once the budget is exhausted, the Matchings may contain degraded results for any of the descendants
+        if (isoCacheable && !budget.isExhausted()) {
+            isoCache.put(left, right, matchings);
         }
 
         if (context.getCMMatcherMode() != CMMode.INTEGRATED) {
@@ -372,7 +675,8 @@ public class Matcher<T extends Artifact<T>> {
             Matching<T> prevMatch = oMatch.get();
 
             if (prevMatch.getPercentage() > 0 && prevMatch.getPercentage() < context.getCmReMatchBound()) { //TODO we may want to remove the first condition
-                Matchings<T> newMatchings = cmMatcher.match(context, left, right);
+                long cells = (long) left.getTreeSize() * right.getTreeSize();
+                Matchings<T> newMatchings = instrumented(cmMatcher.getClass(), cells, () -> cmMatcher.match(context, left, right));
                 oMatch = newMatchings.get(left, right);
 
                 if (oMatch.isPresent() && oMatch.get().getPercentage() > prevMatch.getPercentage()) {
@@ -422,16 +726,65 @@ public class Matcher<T extends Artifact<T>> {
             assert leftLAH != LOOKAHEAD_OFF && rightLAH != LOOKAHEAD_OFF;
             return Optional.of(UnorderedTuple.of(left, right));
         } else if (lType == TRY) {
-            Optional<T> resume = findMatchingNode(left, right, leftLAH);
+            Optional<T> resume = findMatchingNode(getLookAheadIndex(true), left, right, leftLAH);
             return resume.map(t -> UnorderedTuple.of(t, right));
         } else if (rType == TRY) {
-            Optional<T> resume = findMatchingNode(right, left, rightLAH);
+            Optional<T> resume = findMatchingNode(getLookAheadIndex(false), right, left, rightLAH);
             return resume.map(t -> UnorderedTuple.of(left, t));
         } else {
             return Optional.empty();
         }
     }
 
+    /**
+     * Returns the {@link LookAheadIndex} of the left or right tree, building it if necessary.
+     *
+     * @param left
+     *         whether to return the index of the left tree
+     * @return the <code>LookAheadIndex</code>
+     */
+    private synchronized LookAheadIndex<T> getLookAheadIndex(boolean left) {
+
+        if (left) {
+            if (leftIndex == null) {
+                leftIndex = new LookAheadIndex<>(leftRoot);
+            }
+
+            return leftIndex;
+        } else {
+            if (rightIndex == null) {
+                rightIndex = new LookAheadIndex<>(rightRoot);
+            }
+
+            return rightIndex;
+        }
+    }
+
+    /**
+     * Returns the first node in DFS order of the given <code>tree</code> matching <code>nodeToFind</code> as per the
+     * {@link Artifact#matches(Artifact)} method. The node is looked up in the given <code>index</code> if possible,
+     * otherwise the tree is searched.
+     *
+     * @param index
+     *         the <code>LookAheadIndex</code> of the tree containing <code>tree</code>
+     * @param tree
+     *         the tree to search in
+     * @param nodeToFind
+     *         the node to find a match for
+     * @param maxDepth
+     *         the maximum depth of nodes to consider (root is a depth 0)
+     * @return optionally a matching node for <code>nodeToFind</code>
+     */
+    static <T extends Artifact<T>> Optional<T> findMatchingNode(LookAheadIndex<T> index, T tree, T nodeToFind,
+                                                               int maxDepth) {
+
+        if (index.supports(tree, nodeToFind)) {
+            return index.find(tree, nodeToFind, maxDepth);
+        }
+
+        return findMatchingNode(tree, nodeToFind, maxDepth);
+    }
+
     /**
      * Performs a depth first search of the given <code>tree</code> and returns the first node matching
      * <code>nodeToFind</code> as per the {@link Artifact#matches(Artifact)} method.
@@ -444,7 +797,7 @@ public class Matcher<T extends Artifact<T>> {
      *         the maximum depth of nodes to consider (root is a depth 0)
      * @return optionally a matching node for <code>nodeToFind</code>
      */
-    private Optional<T> findMatchingNode(T tree, T nodeToFind, int maxDepth) {
+    static <T extends Artifact<T>> Optional<T> findMatchingNode(T tree, T nodeToFind, int maxDepth) {
 
         if (maxDepth < 0) {
             return Optional.empty();
@@ -480,9 +833,29 @@ public class Matcher<T extends Artifact<T>> {
         });
     }
 
+    /**
+     * Calculates the relevance of the <code>Matching</code>s stored for the nodes of the left tree in a single pass
+     * that visits every node after its children. The relevance of a <code>Matching</code> depends on that of the
+     * <code>Matching</code>s of the children of its left <code>Artifact</code>, which is therefore always already
+     * known. The merge then only reads the calculated values.
+     */
+    private void calculateRelevance() {
+        Revision rightRevision = rightRoot.getRevision();
+        List<T> nodes = Artifacts.dfs(leftRoot);
+
+        for (ListIterator<T> it = nodes.listIterator(nodes.size()); it.hasPrevious(); ) {
+            T node = it.previous();
+            Matching<T> matching = node.getMatching(rightRevision);
+
+            if (matching != null && matching.getLeft() == node) {
+                matching.calculateRelevance();
+            }
+        }
+    }
+
     /**
      * Stores the <code>Matching</code>s contained in <code>matchings</code> in the <code>Artifact</code>s they
-     * match.
+     * match. The shared segments of <code>matchings</code> are copied into it beforehand.
      *
      * @param context
      *         the <code>MergeContext</code> of the current merge
@@ -494,6 +867,8 @@ public class Matcher<T extends Artifact<T>> {
     public void storeMatchings(MergeContext context, Matchings<T> matchings, Color color) {
         LOG.finest("Store matching information within nodes.");
 
+        matchings.flatten();
+
         for (Matching<T> matching : matchings.optimized()) {
 
             if (matching.getScore() > 0) {
@@ -0,0 +1,141 @@
+/**
+ * Copyright (C) 2013-2014 Olaf Lessenich
+ * Copyright (C) 2014-2017 University of Passau, Germany
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ * Contributors:
+ *     Olaf Lessenich <lessenic@fim.uni-passau.de>
+ *     Georg Seibt <seibt@fim.uni-passau.de>
+ */
+package de.fosd.jdime.matcher;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import de.fosd.jdime.config.merge.MergeContext;
+
+/**
+ * The work and time budget of the {@link Matcher} for a single merge. A <code>MatcherBudget</code> is stored in the
+ * <code>MergeContext</code> (see {@link MergeContext#setMatcherBudget(MatcherBudget)}) for the duration of a merge so
+ * that all runs of the <code>Matcher</code> during the merge (e.g. the three runs of a three-way merge) draw from the
+ * same budget. The time budget starts when the <code>MatcherBudget</code> is constructed.
+ */
+public final class MatcherBudget {
+
+    /**
+     * The maximum number of pairs of children the expensive matchers may consider, 0 if unlimited.
+     */
+    private final int work;
+
+    /**
+     * The number of pairs of children charged so far.
+     */
+    private final AtomicLong used;
+
+    /**
+     * Whether there is a time budget and the value of {@link System#nanoTime()} after which it is exhausted.
+     */
+    private final boolean hasDeadline;
+    private final long deadline;
+
+    /**
+     * Whether a charge was rejected because the work or time budget was exhausted.
+     */
+    private volatile boolean exhausted;
+
+    /**
+     * Constructs a new <code>MatcherBudget</code>.
+     *
+     * @param work
+     *         the maximum number of pairs of children the expensive matchers may consider, values smaller than 1
+     *         mean unlimited
+     * @param time
+     *         the time in milliseconds after which the budget is exhausted, values smaller than 1 mean unlimited
+     */
+    public MatcherBudget(int work, int time) {
+        this.work = Math.max(0, work);
+        this.used = new AtomicLong();
+        this.hasDeadline = time > 0;
+        this.deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(time);
+    }
+
+    /**
+     * Constructs a new <code>MatcherBudget</code> using the work and time budget configured in the given
+     * <code>context</code>.
+     *
+     * @param context
+     *         the <code>MergeContext</code> to read the configuration from
+     * @return the new <code>MatcherBudget</code>
+     */
+    public static MatcherBudget of(MergeContext context) {
+        return new MatcherBudget(context.getMatcherWorkBudget(), context.getMatcherTimeBudget());
+    }
+
+    /**
+     * Determines whether an expensive matcher may consider <code>cells</code> pairs of children without exceeding the
+     * work or time budget. If so, the pairs are charged to the work budget.
+     *
+     * @param cells
+     *         the number of pairs of children
+     * @return whether the pairs fit into the budget
+     */
+    boolean charge(long cells) {
+
+        if (hasDeadline && System.nanoTime() - deadline > 0) {
+            exhausted = true;
+            return false;
+        }
+
+        if (work == 0) {
+            used.addAndGet(cells);
+            return true;
+        }
+
+        long current;
+
+        do {
+            current = used.get();
+
+            if (current + cells > work) {
+                exhausted = true;
+                return false;
+            }
+        } while (!used.compareAndSet(current, current + cells));
+
+        return true;
+    }
+
+    /**
+     * Returns whether {@link #charge(long)} rejected pairs of children because the work or time budget was exhausted.
+     * Any <code>Matchings</code> completed afterwards may contain the results of the <code>PositionalMatcher</code>
+     * for some of their descendants.
+     *
+     * @return whether the budget was exhausted
+     */
+    boolean isExhausted() {
+        return exhausted;
+    }
+
+    /**
+     * Returns the number of pairs of children charged to this budget so far.
+     *
+     * @return the used work budget
+     */
+    public long getUsed() {
+        return used.get();
+    }
+}
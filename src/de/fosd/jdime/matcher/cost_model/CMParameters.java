@@ -24,6 +24,7 @@
 package de.fosd.jdime.matcher.cost_model;
 
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
@@ -116,6 +117,25 @@ public final class CMParameters<T extends Artifact<T>> {
     ConcurrentMap<T, List<T>> siblingCache;
     ConcurrentMap<T, List<T>> otherSiblingsCache;
 
+    /**
+     * The <code>CMMatching</code> containing each artifact in the matchings whose exact cost was calculated last or
+     * <code>null</code> if no cost was calculated yet.
+     */
+    Map<T, CMMatching<T>> lastContaining;
+
+    /**
+     * Whether the exact costs and cost bounds of <code>CMMatching</code>s that are unaffected by the changes since the
+     * last calculation are reused. If not, {@link #lastContaining} is never set, every exact cost is recalculated and
+     * {@link CostModelMatcher#complete(CMMatchings, CMParameters)} bounds all <code>CMMatching</code>s in every step.
+     */
+    boolean incremental;
+
+    /**
+     * The edges (pairs of left and right artifacts, <code>null</code> representing the no-match node) of the
+     * bipartite graph from which {@link CostModelMatcher#complete(CMMatchings, CMParameters)} chooses matchings.
+     */
+    List<Tuple<T, T>> edges;
+
     /*
      * Caches valid during one run of the CostModelMatcher#cost(CMMatchings, CMParameters) function.
      */
@@ -134,6 +154,11 @@ public final class CMParameters<T extends Artifact<T>> {
      */
     ConcurrentMap<T, List<CMMatching<T>>> boundContainsCache;
 
+    /**
+     * The increment between the seeds of the PRNGs used by successive chains.
+     */
+    private static final long CHAIN_SEED_GAMMA = 0x9E3779B97F4A7C15L;
+
     /**
      * Constructs a new <code>CMParameters</code> configured from the given <code>MergeContext</code>.
      *
@@ -141,12 +166,27 @@ public final class CMParameters<T extends Artifact<T>> {
      *         the <code>MergeContext</code> to use
      */
     public CMParameters(MergeContext context) {
+        this(context, 0);
+    }
+
+    /**
+     * Constructs a new <code>CMParameters</code> for the chain with the given index configured from the given
+     * <code>MergeContext</code>. The PRNG of chain 0 is seeded with the seed from the <code>context</code>, those of
+     * the other chains with seeds derived from it.
+     *
+     * @param context
+     *         the <code>MergeContext</code> to use
+     * @param chain
+     *         the index of the chain the parameters are used for
+     */
+    public CMParameters(MergeContext context, int chain) {
         setNoMatchWeight(context.getWn());
         setRenamingWeight(context.getWr());
         setAncestryViolationWeight(context.getWa());
         setSiblingGroupBreakupWeight(context.getWs());
         setOrderingWeight(context.getWo());
-        rng = new RandomAdaptor(context.getSeed().map(Well19937c::new).orElse(new Well19937c()));
+        rng = new RandomAdaptor(context.getSeed().map(s -> new Well19937c(s + chain * CHAIN_SEED_GAMMA))
+                                       .orElse(new Well19937c()));
         assignDist = new PascalDistribution(rng, 1, context.getpAssign());
         setPAssign(context.getpAssign());
         setFixLower(context.getFixLower());
@@ -159,6 +199,7 @@ public final class CMParameters<T extends Artifact<T>> {
         otherSiblingsCache = new ConcurrentHashMap<>();
         exactContainsCache = new ConcurrentHashMap<>();
         boundContainsCache = new ConcurrentHashMap<>();
+        incremental = true;
     }
 
     /**
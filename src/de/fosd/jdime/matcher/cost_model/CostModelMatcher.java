@@ -24,9 +24,12 @@
 package de.fosd.jdime.matcher.cost_model;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.ListIterator;
@@ -41,6 +44,7 @@ import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import de.fosd.jdime.artifact.Artifact;
@@ -125,6 +129,21 @@ public class CostModelMatcher<T extends Artifact<T>> implements MatcherInterface
         }
     }
 
+    /**
+     * The result of one Metropolis chain run by {@link #runChain(MergeContext, int, CMMatchings, List)} containing the
+     * lowest cost set of <code>CMMatching</code>s it encountered and their exact cost.
+     */
+    private final class ChainResult {
+
+        public final CMMatchings<T> lowest;
+        public final float lowestCost;
+
+        public ChainResult(CMMatchings<T> lowest, float lowestCost) {
+            this.lowest = lowest;
+            this.lowestCost = lowestCost;
+        }
+    }
+
     /**
      * Returns the exact cost of the given set of <code>matchings</code>.
      *
@@ -172,6 +191,10 @@ public class CostModelMatcher<T extends Artifact<T>> implements MatcherInterface
      * for every node in the left and right tree exactly one <code>CMMatching</code> containing the node.
      * The exact cost computed for every <code>CMMatching</code> can be retrieved using
      * ({@link CMMatching#getExactCost()} after this call.
+     * <p>
+     * The exact cost of a <code>CMMatching</code> only depends on the images of the children and siblings of the
+     * artifacts it matches. A <code>CMMatching</code> that was part of the <code>matchings</code> passed to the
+     * previous call (see {@link CMParameters#lastContaining}) keeps its exact cost if none of these images changed.
      *
      * @param matchings
      *         the <code>CMMatchings</code>s to evaluate
@@ -179,7 +202,7 @@ public class CostModelMatcher<T extends Artifact<T>> implements MatcherInterface
      *          the <code>CMParameters</code> to use
      * @return the cost based on the weight functions in <code>parameters</code>
      */
-    private float cost(CMMatchings<T> matchings, CMParameters<T> parameters) {
+    float cost(CMMatchings<T> matchings, CMParameters<T> parameters) {
 
         if (!matchings.sane()) {
             throw new IllegalArgumentException("The given list of matchings has an invalid format. A list of " +
@@ -192,20 +215,99 @@ public class CostModelMatcher<T extends Artifact<T>> implements MatcherInterface
             return 0;
         }
 
+        Map<T, CMMatching<T>> containing = new IdentityHashMap<>();
+
+        for (CMMatching<T> matching : matchings) {
+
+            if (matching.m != null) {
+                containing.put(matching.m, matching);
+            }
+
+            if (matching.n != null) {
+                containing.put(matching.n, matching);
+            }
+        }
+
+        parameters.exactContainsCache.putAll(containing);
+
+        CMMatchings<T> changed = new CMMatchings<>(matchings.left, matchings.right);
+
+        for (CMMatching<T> matching : matchings) {
+
+            if (!unchanged(matching, matchings, containing, parameters)) {
+                changed.add(matching);
+            }
+        }
+
+        log(FINER, matchings, () -> "Calculating the exact cost of " + changed.size() + " of " + matchings.size() +
+                                    " matchings.");
+
         if (parameters.parallel) {
-            matchings.parallelStream().forEach(m -> cost(m, matchings, parameters));
+            changed.parallelStream().forEach(m -> cost(m, matchings, parameters));
         } else {
-            matchings.forEach(m -> cost(m, matchings, parameters));
+            changed.forEach(m -> cost(m, matchings, parameters));
         }
 
         double sumCost = matchings.stream().mapToDouble(CMMatching::getExactCost).sum();
         sumCost *= (1.0f / (matchings.left.getTreeSize() + matchings.right.getTreeSize()));
 
         parameters.clearExactCaches();
+        parameters.lastContaining = parameters.incremental ? containing : null;
 
         return (float) sumCost;
     }
 
+    /**
+     * Returns whether the exact cost stored in <code>matching</code> is still valid for the given
+     * <code>matchings</code>. This is the case if <code>matching</code> was part of the matchings whose cost was
+     * calculated last and the children and siblings of both its artifacts still have the same images.
+     *
+     * @param matching
+     *         the <code>CMMatching</code> to check
+     * @param matchings
+     *         the complete <code>CMMatching</code>s
+     * @param containing
+     *         the <code>CMMatching</code> containing each artifact in <code>matchings</code>
+     * @param parameters
+     *         the <code>CMParameters</code> to use
+     * @return whether the exact cost of <code>matching</code> does not have to be calculated again
+     */
+    private boolean unchanged(CMMatching<T> matching, CMMatchings<T> matchings, Map<T, CMMatching<T>> containing,
+                              CMParameters<T> parameters) {
+        Map<T, CMMatching<T>> last = parameters.lastContaining;
+
+        if (last == null || matching.isNoMatch() || last.get(matching.m) != matching) {
+            return false;
+        }
+
+        return sameImages(matching.m.getChildren(), last, containing)
+                && sameImages(matching.n.getChildren(), last, containing)
+                && sameImages(siblings(matching.m, matchings, parameters), last, containing)
+                && sameImages(siblings(matching.n, matchings, parameters), last, containing);
+    }
+
+    /**
+     * Returns whether all <code>artifacts</code> have the same image in both maps.
+     *
+     * @param artifacts
+     *         the artifacts to check
+     * @param last
+     *         the <code>CMMatching</code> containing each artifact in the previous matchings
+     * @param current
+     *         the <code>CMMatching</code> containing each artifact in the current matchings
+     * @return true iff no image differs
+     */
+    private boolean sameImages(List<T> artifacts, Map<T, CMMatching<T>> last, Map<T, CMMatching<T>> current) {
+
+        for (T artifact : artifacts) {
+            if (last.get(artifact).other(artifact) != current.get(artifact).other(artifact)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
     /**
      * Sets the exact cost ({@link CMMatching#setExactCost(float)}) of the given <code>matching</code> based on
      * the given set of <code>matchings</code>.
@@ -557,28 +659,82 @@ public class CostModelMatcher<T extends Artifact<T>> implements MatcherInterface
     }
 
     /**
-     * Sets the bounds ({@link CMMatching#setCostBounds(Bounds)}) for the cost of all current matchings.
+     * Sets the bounds ({@link CMMatching#setCostBounds(Bounds)}) for the cost of the current matchings. The bounds of
+     * a <code>CMMatching</code> only depend on the <code>CMMatching</code>s containing the children and siblings of the
+     * artifacts it matches. If <code>changed</code> is not <code>null</code>, only the <code>CMMatching</code>s for
+     * which one of these artifacts is contained in <code>changed</code> are bounded again.
      *
      * @param currentMatchings
      *         the current <code>CMMatchings</code>s being considered
+     * @param changed
+     *         the artifacts whose containing <code>CMMatching</code>s changed since the last call or <code>null</code>
+     *         if all <code>CMMatching</code>s are to be bounded
      * @param parameters
      *         the <code>CMParameters</code> to use
      */
-    private void boundCost(CMMatchings<T> currentMatchings, CMParameters<T> parameters) {
-        LOG.finer(() -> "Bounding " + currentMatchings.size() + " matchings.");
+    void boundCost(CMMatchings<T> currentMatchings, Set<T> changed, CMParameters<T> parameters) {
+        CMMatchings<T> toBound;
+
+        if (changed == null) {
+            toBound = currentMatchings;
+        } else {
+            toBound = new CMMatchings<>(currentMatchings.left, currentMatchings.right);
+
+            for (CMMatching<T> matching : currentMatchings) {
+                if (!matching.isNoMatch() && dependsOn(matching, changed, currentMatchings, parameters)) {
+                    toBound.add(matching);
+                }
+            }
+        }
+
+        LOG.finer(() -> "Bounding " + toBound.size() + " of " + currentMatchings.size() + " matchings.");
 
         AtomicInteger mCount = LOG.isLoggable(FINEST) ? new AtomicInteger() : null;
         Consumer<CMMatching<T>> mPeek = m -> LOG.finest(() -> "Done with matching " + mCount.getAndIncrement() + " " + m);
 
+        for (CMMatching<T> matching : currentMatchings) {
+
+            if (matching.m != null) {
+                parameters.boundContainsCache.computeIfAbsent(matching.m, a -> new ArrayList<>()).add(matching);
+            }
+
+            if (matching.n != null) {
+                parameters.boundContainsCache.computeIfAbsent(matching.n, a -> new ArrayList<>()).add(matching);
+            }
+        }
+
         if (parameters.parallel) {
-            currentMatchings.parallelStream().peek(mPeek).forEach(m -> boundCost(m, currentMatchings, parameters));
+            toBound.parallelStream().peek(mPeek).forEach(m -> boundCost(m, currentMatchings, parameters));
         } else {
-            currentMatchings.stream().peek(mPeek).forEach(m -> boundCost(m, currentMatchings, parameters));
+            toBound.stream().peek(mPeek).forEach(m -> boundCost(m, currentMatchings, parameters));
         }
 
         parameters.clearBoundCaches();
     }
 
+    /**
+     * Returns whether one of the children or siblings of the artifacts matched by <code>matching</code> is contained
+     * in <code>artifacts</code>.
+     *
+     * @param matching
+     *         the <code>CMMatching</code> to check
+     * @param artifacts
+     *         the artifacts to look for
+     * @param matchings
+     *         the current <code>CMMatchings</code>
+     * @param parameters
+     *         the <code>CMParameters</code> to use
+     * @return true iff the cost of <code>matching</code> may depend on one of the <code>artifacts</code>
+     */
+    private boolean dependsOn(CMMatching<T> matching, Set<T> artifacts, CMMatchings<T> matchings,
+                              CMParameters<T> parameters) {
+
+        return matching.m.getChildren().stream().anyMatch(artifacts::contains)
+                || matching.n.getChildren().stream().anyMatch(artifacts::contains)
+                || siblings(matching.m, matchings, parameters).stream().anyMatch(artifacts::contains)
+                || siblings(matching.n, matchings, parameters).stream().anyMatch(artifacts::contains);
+    }
+
     /**
      * Sets the bounds ({@link CMMatching#setCostBounds(Bounds)}) for the cost of the given <code>matching</code>
      * based on the given <code>currentMatchings</code>.
@@ -958,7 +1114,9 @@ public class CostModelMatcher<T extends Artifact<T>> implements MatcherInterface
 
     /**
      * Matches the tress rooted in <code>left</code> and <code>right</code> using the Metropolis algorithm and the
-     * Flexible Tree Matching cost model.
+     * Flexible Tree Matching cost model. If {@link MergeContext#getCmMatcherChains()} is greater than one, that many
+     * independent chains are run in parallel and the lowest cost matchings found by any of them are returned. Ties are
+     * broken in favor of the chain with the lower index.
      *
      * @param context
      *         the <code>MergeContext</code> containing the parameters to use for the Flexible Tree Matching
@@ -972,10 +1130,60 @@ public class CostModelMatcher<T extends Artifact<T>> implements MatcherInterface
      * @return the resulting matchings
      */
     private Matchings<T> match(MergeContext context, T left, T right, CMMatchings<T> preFixed) {
-        CMParameters<T> parameters = new CMParameters<>(context);
+        int chains = context.getCmMatcherChains();
 
         LOG.finer("Matching " + left + " and " + right + " using the " + getClass().getSimpleName());
 
+        List<Tuple<T, T>> edges = candidateEdges(left, right, preFixed, context.getCmMatcherCandidates());
+
+        if (chains <= 1) {
+            return convert(runChain(context, 0, preFixed, edges).lowest);
+        }
+
+        LOG.finer(() -> "Running " + chains + " chains in parallel.");
+
+        /*
+         * The CMMatchings cache their costs, every chain therefore needs its own copies of the pre-fixed matchings.
+         */
+        List<ChainResult> results = IntStream.range(0, chains).parallel().mapToObj(chain -> {
+            CMMatchings<T> chainPreFixed = new CMMatchings<>(preFixed.size(), left, right);
+
+            for (CMMatching<T> matching : preFixed) {
+                chainPreFixed.add(new CMMatching<>(matching.m, matching.n));
+            }
+
+            return runChain(context, chain, chainPreFixed, edges);
+        }).collect(toList());
+
+        ChainResult lowest = results.get(0);
+
+        for (ChainResult result : results) {
+            if (result.lowestCost < lowest.lowestCost) {
+                lowest = result;
+            }
+        }
+
+        return convert(lowest.lowest);
+    }
+
+    /**
+     * Runs one chain of the Metropolis algorithm and returns the lowest cost matchings it encountered.
+     *
+     * @param context
+     *         the <code>MergeContext</code> containing the parameters to use for the Flexible Tree Matching
+     *         algorithm
+     * @param chain
+     *         the index of the chain, used to derive the seed of its PRNG
+     * @param preFixed
+     *         the matchings between the left and right tree that are fixed
+     * @param edges
+     *         the edges of the bipartite graph to operate on
+     * @return the lowest cost matchings of the chain and their cost
+     */
+    private ChainResult runChain(MergeContext context, int chain, CMMatchings<T> preFixed, List<Tuple<T, T>> edges) {
+        CMParameters<T> parameters = parameters(context, chain);
+        parameters.edges = edges;
+
         CMMatchings<T> m = initialize(preFixed, parameters);
         ObjectiveValue mObjVal = objective(m, parameters);
 
@@ -1006,9 +1214,23 @@ public class CostModelMatcher<T extends Artifact<T>> implements MatcherInterface
             LOG.finer("End of iteration " + i);
         }
 
-        LOG.finer(() -> "Matching ended after " + context.getCostModelIterations() + " iterations.");
+        LOG.finer(() -> "Chain " + chain + " ended after " + context.getCostModelIterations() + " iterations.");
 
-        return convert(lowest);
+        return new ChainResult(lowest, lowestCost);
+    }
+
+    /**
+     * Returns the <code>CMParameters</code> for the chain with the given index.
+     *
+     * @param context
+     *         the <code>MergeContext</code> containing the parameters to use for the Flexible Tree Matching
+     *         algorithm
+     * @param chain
+     *         the index of the chain
+     * @return the <code>CMParameters</code> for the chain
+     */
+    CMParameters<T> parameters(MergeContext context, int chain) {
+        return new CMParameters<>(context, chain);
     }
 
     /**
@@ -1134,15 +1356,17 @@ public class CostModelMatcher<T extends Artifact<T>> implements MatcherInterface
      *         the cost model parameters
      * @return the completed set of matchings
      */
-    private CMMatchings<T> complete(CMMatchings<T> fixedMatchings, CMParameters<T> parameters) {
-        CMMatchings<T> current = completeBipartiteGraph(fixedMatchings.left, fixedMatchings.right, parameters);
+    CMMatchings<T> complete(CMMatchings<T> fixedMatchings, CMParameters<T> parameters) {
+        CMMatchings<T> current = bipartiteGraph(fixedMatchings.left, fixedMatchings.right, parameters);
         CMMatchings<T> fixed = new CMMatchings<>(fixedMatchings, fixedMatchings.left, fixedMatchings.right);
 
-        fixed.forEach(m -> prune(m, current));
+        fixed.forEach(m -> prune(m, current, null));
+
+        Set<T> changed = null;
 
         while (fixed.size() != current.size()) {
 
-            boundCost(current, parameters);
+            boundCost(current, changed, parameters);
             current.sort(comparing(CMMatching::getCostBounds, BY_LOWER_UPPER));
 
             CMMatchings<T> available = new CMMatchings<>(current, current.left, current.right);
@@ -1156,7 +1380,9 @@ public class CostModelMatcher<T extends Artifact<T>> implements MatcherInterface
             CMMatching<T> matching = available.get(i);
 
             fixed.add(matching);
-            prune(matching, current);
+
+            changed = parameters.incremental ? Collections.newSetFromMap(new IdentityHashMap<>()) : null;
+            prune(matching, current, changed);
         }
 
         return fixed;
@@ -1169,8 +1395,10 @@ public class CostModelMatcher<T extends Artifact<T>> implements MatcherInterface
      *         the matching to prune for
      * @param g
      *         the matchings to prune from
+     * @param changed
+     *         if not <code>null</code>, the artifacts contained in the removed matchings are added to it
      */
-    private void prune(CMMatching<T> matching, CMMatchings<T> g) {
+    private void prune(CMMatching<T> matching, CMMatchings<T> g, Set<T> changed) {
 
         for (ListIterator<CMMatching<T>> it = g.listIterator(); it.hasNext();) {
             CMMatching<T> current = it.next();
@@ -1178,13 +1406,24 @@ public class CostModelMatcher<T extends Artifact<T>> implements MatcherInterface
 
             if (neq && ((matching.m != null && matching.m == current.m) || (matching.n != null && matching.n == current.n))) {
                 it.remove();
+
+                if (changed != null) {
+                    if (current.m != null) {
+                        changed.add(current.m);
+                    }
+
+                    if (current.n != null) {
+                        changed.add(current.n);
+                    }
+                }
             }
         }
     }
 
     /**
-     * Returns the (randomly ordered) complete bipartite graph between the trees rooted in <code>left</code> and
-     * <code>right</code> with the addition of one no-match node (represented by <code>null</code>) each.
+     * Returns the (randomly ordered) bipartite graph between the trees rooted in <code>left</code> and
+     * <code>right</code> with the addition of one no-match node (represented by <code>null</code>) each. The graph
+     * consists of fresh <code>CMMatching</code>s for the edges in {@link CMParameters#edges}.
      *
      * @param left
      *         the left root
@@ -1192,31 +1431,229 @@ public class CostModelMatcher<T extends Artifact<T>> implements MatcherInterface
      *         the right root
      * @param parameters
      *         the cost model parameters
-     * @return the complete bipartite graph with its edges represented by <code>CMMatching</code>s
+     * @return the bipartite graph with its edges represented by <code>CMMatching</code>s
+     */
+    private CMMatchings<T> bipartiteGraph(T left, T right, CMParameters<T> parameters) {
+        CMMatchings<T> bipartiteGraph = new CMMatchings<>(parameters.edges.size(), left, right);
+
+        for (Tuple<T, T> edge : parameters.edges) {
+            bipartiteGraph.add(new CMMatching<>(edge.x, edge.y));
+        }
+
+        Collections.shuffle(bipartiteGraph, parameters.rng);
+        return bipartiteGraph;
+    }
+
+    /**
+     * Returns the edges of the bipartite graph the Metropolis algorithm operates on. Every artifact has an edge to the
+     * no-match node. If <code>candidates</code> is not positive, every pair of artifacts from the left and right tree
+     * whose categories match is connected. Otherwise, only the edges to the <code>candidates</code> most plausible
+     * partners of every artifact (see {@link #plausibility(Artifact, Artifact)}) and the edges of the
+     * <code>preFixed</code> matchings are kept.
+     *
+     * @param left
+     *         the left root
+     * @param right
+     *         the right root
+     * @param preFixed
+     *         the matchings between the left and right tree that are fixed
+     * @param candidates
+     *         the maximum number of partners kept for every artifact
+     * @return the edges of the bipartite graph
      */
-    private CMMatchings<T> completeBipartiteGraph(T left, T right, CMParameters<T> parameters) {
+    List<Tuple<T, T>> candidateEdges(T left, T right, CMMatchings<T> preFixed, int candidates) {
         List<T> leftNodes = Artifacts.bfs(left);
         List<T> rightNodes = Artifacts.bfs(right);
+        List<Tuple<T, T>> edges = new ArrayList<>();
 
-        // add the "No Match" node
-        leftNodes.add(null);
-        rightNodes.add(null);
+        if (candidates <= 0) {
 
-        CMMatchings<T> bipartiteGraph = new CMMatchings<>(left, right);
+            // add the "No Match" node
+            leftNodes.add(null);
+            rightNodes.add(null);
 
-        for (T lNode : leftNodes) {
-            for (T rNode : rightNodes) {
-
-                if (lNode != null && (rNode == null || lNode.categoryMatches(rNode))) {
-                    bipartiteGraph.add(new CMMatching<>(lNode, rNode));
-                } else if (rNode != null && (lNode == null || rNode.categoryMatches(lNode))) {
-                    bipartiteGraph.add(new CMMatching<>(lNode, rNode));
+            for (T lNode : leftNodes) {
+                for (T rNode : rightNodes) {
+                    if (isEdge(lNode, rNode)) {
+                        edges.add(Tuple.of(lNode, rNode));
+                    }
                 }
             }
+
+            return edges;
         }
 
-        Collections.shuffle(bipartiteGraph, parameters.rng);
-        return bipartiteGraph;
+        BitSet[] keep = new BitSet[leftNodes.size()];
+
+        for (int i = 0; i < leftNodes.size(); i++) {
+            keep[i] = new BitSet(rightNodes.size());
+
+            for (int j : topCandidates(leftNodes.get(i), i, leftNodes.size(), rightNodes, true, candidates)) {
+                keep[i].set(j);
+            }
+        }
+
+        for (int j = 0; j < rightNodes.size(); j++) {
+            for (int i : topCandidates(rightNodes.get(j), j, rightNodes.size(), leftNodes, false, candidates)) {
+                keep[i].set(j);
+            }
+        }
+
+        Map<T, Integer> leftIndex = new IdentityHashMap<>();
+        Map<T, Integer> rightIndex = new IdentityHashMap<>();
+
+        for (int i = 0; i < leftNodes.size(); i++) {
+            leftIndex.put(leftNodes.get(i), i);
+        }
+
+        for (int j = 0; j < rightNodes.size(); j++) {
+            rightIndex.put(rightNodes.get(j), j);
+        }
+
+        for (CMMatching<T> matching : preFixed) {
+            if (!matching.isNoMatch()) {
+                keep[leftIndex.get(matching.m)].set(rightIndex.get(matching.n));
+            }
+        }
+
+        // the same order as for the complete graph, only the no-match node is connected to every artifact
+        for (int i = 0; i < leftNodes.size(); i++) {
+            T lNode = leftNodes.get(i);
+
+            for (int j = keep[i].nextSetBit(0); j >= 0; j = keep[i].nextSetBit(j + 1)) {
+                edges.add(Tuple.of(lNode, rightNodes.get(j)));
+            }
+
+            edges.add(Tuple.of(lNode, null));
+        }
+
+        for (T rNode : rightNodes) {
+            edges.add(Tuple.of(null, rNode));
+        }
+
+        int numEdges = edges.size();
+        LOG.finer(() -> "Kept " + numEdges + " candidate edges for " + leftNodes.size() + " left and " +
+                rightNodes.size() + " right artifacts.");
+
+        return edges;
+    }
+
+    /**
+     * Returns whether the complete bipartite graph contains an edge between <code>lNode</code> and
+     * <code>rNode</code>.
+     *
+     * @param lNode
+     *         the left artifact or <code>null</code> for the no-match node
+     * @param rNode
+     *         the right artifact or <code>null</code> for the no-match node
+     * @return true iff the artifacts may be matched
+     */
+    private boolean isEdge(T lNode, T rNode) {
+        return (lNode != null && (rNode == null || lNode.categoryMatches(rNode)))
+                || (rNode != null && (lNode == null || rNode.categoryMatches(lNode)));
+    }
+
+    /**
+     * Returns the indices of the (at most) <code>k</code> artifacts from <code>others</code> that are the most
+     * plausible partners of <code>artifact</code>. Among equally plausible partners, the ones whose relative position
+     * in <code>others</code> is closest to that of <code>artifact</code> are preferred.
+     *
+     * @param artifact
+     *         the artifact to find partners for
+     * @param index
+     *         the index of <code>artifact</code> in its breadth-first ordered tree
+     * @param size
+     *         the size of the tree of <code>artifact</code>
+     * @param others
+     *         the breadth-first ordered artifacts of the other tree
+     * @param isLeft
+     *         whether <code>artifact</code> is from the left tree
+     * @param k
+     *         the maximum number of partners
+     * @return the indices of the partners in <code>others</code> ordered by descending plausibility
+     */
+    private int[] topCandidates(T artifact, int index, int size, List<T> others, boolean isLeft, int k) {
+        int[] best = new int[k];
+        int[] bestScores = new int[k];
+        double[] bestDistances = new double[k];
+        int found = 0;
+
+        double position = (double) index / size;
+
+        for (int j = 0; j < others.size(); j++) {
+            T lNode = isLeft ? artifact : others.get(j);
+            T rNode = isLeft ? others.get(j) : artifact;
+
+            if (!isEdge(lNode, rNode)) {
+                continue;
+            }
+
+            int score = plausibility(lNode, rNode);
+            double distance = Math.abs(position - (double) j / others.size());
+
+            int insert = found;
+
+            while (insert > 0 && (score > bestScores[insert - 1]
+                    || (score == bestScores[insert - 1] && distance < bestDistances[insert - 1]))) {
+                insert--;
+            }
+
+            if (insert >= k) {
+                continue;
+            }
+
+            int last = Math.min(found, k - 1);
+
+            System.arraycopy(best, insert, best, insert + 1, last - insert);
+            System.arraycopy(bestScores, insert, bestScores, insert + 1, last - insert);
+            System.arraycopy(bestDistances, insert, bestDistances, insert + 1, last - insert);
+
+            best[insert] = j;
+            bestScores[insert] = score;
+            bestDistances[insert] = distance;
+
+            if (found < k) {
+                found++;
+            }
+        }
+
+        return Arrays.copyOf(best, found);
+    }
+
+    /**
+     * Returns how plausible it is that <code>lNode</code> and <code>rNode</code> are matched. Equal trees are the most
+     * plausible partners, followed by artifacts that match according to {@link Artifact#matches(Artifact)}. Matching
+     * parents and equal numbers of children add to the plausibility.
+     *
+     * @param lNode
+     *         the left artifact
+     * @param rNode
+     *         the right artifact
+     * @return the plausibility, higher values are more plausible
+     */
+    private int plausibility(T lNode, T rNode) {
+        int plausibility = 0;
+
+        if (lNode.getTreeSize() == rNode.getTreeSize() && lNode.getTreeHash().equals(rNode.getTreeHash())) {
+            plausibility += 8;
+        }
+
+        if (lNode.matches(rNode)) {
+            plausibility += 4;
+        }
+
+        T lParent = lNode.getParent();
+        T rParent = rNode.getParent();
+
+        if (lParent == null ? rParent == null : rParent != null && lParent.matches(rParent)) {
+            plausibility += 2;
+        }
+
+        if (lNode.getNumChildren() == rNode.getNumChildren()) {
+            plausibility += 1;
+        }
+
+        return plausibility;
     }
 
     /**
@@ -234,7 +234,8 @@ public class Matching<T extends Artifact<T>> implements Cloneable, Comparable<Ma
     }
 
     /**
-     * Set relevance.
+     * Set relevance. The relevance of the <code>Matching</code>s of the children of the left <code>Artifact</code> is
+     * calculated on demand if it is not already known.
      *
      * @author paul
      */
@@ -23,16 +23,24 @@
  */
 package de.fosd.jdime.matcher.matching;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.function.BiFunction;
+import java.util.Spliterator;
 import java.util.function.Function;
 
 import de.fosd.jdime.artifact.Artifact;
@@ -41,6 +49,25 @@ import de.fosd.jdime.util.UnorderedTuple;
 /**
  * A <code>Set</code> of <code>Matching</code>s. Adds methods to retrieve specific elements of the <code>Set</code>
  * by their matched <code>Artifact</code>s.
+ * <p>
+ * Lookups by the matched <code>Artifact</code>s are served from hash indexes over the contained
+ * <code>Matching</code>s. The indexes are built on the first lookup and kept in sync with every subsequent
+ * modification of the <code>Set</code>.
+ * <p>
+ * To avoid copying the <code>Matching</code>s of whole subtrees at every level of the recursive matching process,
+ * {@link #addMatchings(Matchings)} and {@link #addAllMatchings(Collection)} only store references to the given
+ * <code>Matchings</code> as shared segments. The segments are copied into this <code>Set</code> by
+ * {@link #flatten()}, which happens implicitly once the <code>Set</code> is iterated, queried for its size,
+ * searched for an element that is not one of its own or modified. Segments must not be modified after they were
+ * added. Because of this, a <code>Matching</code> added after a segment containing an equal <code>Matching</code> is
+ * rejected, just as if the segment had been copied in by {@link #addAll(Collection)}.
+ * <p>
+ * The <code>Matcher</code> shares <code>Matchings</code> between threads (e.g. through its memo) while they may still
+ * be flattened or indexed implicitly. All methods that read or change the contents, segments or indexes of an
+ * instance are therefore synchronized on it. {@link #flatten()} additionally synchronizes on every segment while
+ * copying from it. Locks are only ever acquired from a <code>Matchings</code> instance to its segments. Iterators
+ * are not synchronized, but flatten the instance when they are created. As long as nothing is added to or removed
+ * from a shared instance explicitly, iterating it is therefore safe.
  *
  * @param <T>
  *         the type of the <code>Artifact</code>s
@@ -49,7 +76,34 @@ public class Matchings<T extends Artifact<T>> extends HashSet<Matching<T>> {
 
     private static final long serialVersionUID = 1L;
 
-    private final UnorderedTuple<T, T> tuple = UnorderedTuple.of(null, null);
+    /**
+     * The <code>Matchings</code> that were added to this <code>Set</code> but have not yet been copied into it.
+     */
+    private transient List<Matchings<T>> segments = new ArrayList<>();
+
+    /**
+     * The <code>Matching</code>s in this <code>Set</code> by their {@link Matching#getMatchedArtifacts()}.
+     * <code>null</code> as long as no lookup has been performed.
+     */
+    private transient Map<UnorderedTuple<T, T>, Matching<T>> pairIndex;
+
+    /**
+     * The <code>Matching</code>s in this <code>Set</code> by their {@link Matching#getLeft()} artifact in insertion
+     * order. <code>null</code> as long as no lookup has been performed.
+     */
+    private transient Map<T, List<Matching<T>>> leftIndex;
+
+    /**
+     * The <code>Matching</code>s in this <code>Set</code> by their {@link Matching#getRight()} artifact in insertion
+     * order. <code>null</code> as long as no lookup has been performed.
+     */
+    private transient Map<T, List<Matching<T>>> rightIndex;
+
+    /**
+     * The <code>Matching</code>s in this <code>Set</code> by the {@link Artifact#getId()} of their left artifact.
+     * <code>null</code> as long as {@link #queryRightByLeftId(String)} has not been called.
+     */
+    private transient Map<String, List<Matching<T>>> leftIdIndex;
 
     /**
      * Creates a new <code>Matchings</code> instance containing a single <code>Matching</code> that matches
@@ -81,7 +135,7 @@ public class Matchings<T extends Artifact<T>> extends HashSet<Matching<T>> {
      *         the <code>Artifact</code>s whose <code>Matching</code> is to be returned
      * @return optionally the <code>Matching</code> matching the given <code>artifacts</code>
      */
-    public Optional<Matching<T>> get(UnorderedTuple<T, T> artifacts) {
+    public synchronized Optional<Matching<T>> get(UnorderedTuple<T, T> artifacts) {
         T left = artifacts.getX();
         T right = artifacts.getY();
 
@@ -102,7 +156,16 @@ public class Matchings<T extends Artifact<T>> extends HashSet<Matching<T>> {
             return Optional.empty();
         }
 
-        return stream().filter(matching -> matching.getMatchedArtifacts().equals(artifacts)).findFirst();
+        buildIndexes();
+
+        Matching<T> matching = pairIndex.get(artifacts);
+
+        if (matching == null && !segments.isEmpty()) {
+            flatten();
+            matching = pairIndex.get(artifacts);
+        }
+
+        return Optional.ofNullable(matching);
     }
 
     /**
@@ -117,15 +180,7 @@ public class Matchings<T extends Artifact<T>> extends HashSet<Matching<T>> {
      * @return optionally the <code>Matching</code> matching the given <code>artifacts</code>
      */
     public Optional<Matching<T>> get(T left, T right) {
-        tuple.setX(left);
-        tuple.setY(right);
-
-        Optional<Matching<T>> matching = get(tuple);
-
-        tuple.setX(null);
-        tuple.setY(null);
-
-        return matching;
+        return get(UnorderedTuple.of(left, right));
     }
 
     /**
@@ -156,7 +211,7 @@ public class Matchings<T extends Artifact<T>> extends HashSet<Matching<T>> {
      * @return optionally the first <code>Matching</code> containing <code>artifact</code>
      */
     public Optional<Matching<T>> getLeft(T artifact) {
-        return get(artifact, Matching::getLeft);
+        return get(artifact, m -> m.leftIndex);
     }
 
     /**
@@ -168,19 +223,34 @@ public class Matchings<T extends Artifact<T>> extends HashSet<Matching<T>> {
      * @return optionally the first <code>Matching</code> containing <code>artifact</code>
      */
     public Optional<Matching<T>> getRight(T artifact) {
-        return get(artifact, Matching::getRight);
+        return get(artifact, m -> m.rightIndex);
     }
 
     /**
-     * Returns the first matching whose result of the application of <code>getArtifact</code> is equal to
-     * <code>artifact</code>.
+     * Returns the first matching (in insertion order) that was added to the index returned by
+     * <code>getIndex</code> for the given <code>artifact</code>.
      *
      * @param artifact
      *         the <code>Artifact</code> to search for
+     * @param getIndex
+     *         the function returning the index to query
      * @return optionally the first <code>Matching</code> containing <code>artifact</code>
      */
-    private Optional<Matching<T>> get(T artifact, Function<Matching<T>, T> getArtifact) {
-        return stream().filter(m -> getArtifact.apply(m) == artifact).findFirst();
+    private synchronized Optional<Matching<T>> get(T artifact, Function<Matchings<T>, Map<T, List<Matching<T>>>> getIndex) {
+        buildIndexes();
+
+        List<Matching<T>> matchings = getIndex.apply(this).get(artifact);
+
+        if (matchings == null && !segments.isEmpty()) {
+            flatten();
+            matchings = getIndex.apply(this).get(artifact);
+        }
+
+        if (matchings == null || matchings.isEmpty()) {
+            return Optional.empty();
+        } else {
+            return Optional.of(matchings.get(0));
+        }
     }
 
     /**
@@ -212,53 +282,127 @@ public class Matchings<T extends Artifact<T>> extends HashSet<Matching<T>> {
      * @return optionally the matching score for the given <code>artifacts</code>
      */
     public Optional<Integer> getScore(T left, T right) {
-        tuple.setX(left);
-        tuple.setY(right);
-
-        Optional<Integer> matching = getScore(tuple);
-
-        tuple.setX(null);
-        tuple.setY(null);
-
-        return matching;
+        return getScore(UnorderedTuple.of(left, right));
     }
 
     /**
-     * Adds all <code>Matchings</code> contained in the given collection.
+     * Adds all <code>Matchings</code> contained in the given collection. The <code>Matchings</code> are not copied
+     * but shared as segments of this <code>Set</code> until it is flattened.
      *
      * @param matchings
      *         the <code>Matchings</code> to add
+     * @see #addMatchings(Matchings)
      */
     public void addAllMatchings(Collection<? extends Matchings<T>> matchings) {
         for (Matchings<T> matching : matchings) {
-            addAll(matching);
+            addMatchings(matching);
+        }
+    }
+
+    /**
+     * Adds all <code>Matching</code>s contained in the given <code>Matchings</code>. The <code>Matchings</code> are
+     * not copied but shared as a segment of this <code>Set</code> until it is flattened. <code>matchings</code> must
+     * not be modified afterwards.
+     *
+     * @param matchings
+     *         the <code>Matchings</code> to add
+     */
+    public synchronized void addMatchings(Matchings<T> matchings) {
+
+        if (matchings != this) {
+            segments.add(matchings);
+        }
+    }
+
+    /**
+     * Copies all <code>Matching</code>s contained in the segments of this <code>Set</code> (and transitively in
+     * their segments) into it. Afterwards this <code>Set</code> no longer references any other <code>Matchings</code>.
+     * The segments themselves are not modified. If a <code>Matching</code> is contained in more than one segment,
+     * the first one to be encountered (own <code>Matching</code>s first, then the segments in the order they were
+     * added) is retained.
+     */
+    public synchronized void flatten() {
+
+        if (segments.isEmpty()) {
+            return;
+        }
+
+        Deque<Matchings<T>> toCopy = new ArrayDeque<>();
+
+        for (int i = segments.size() - 1; i >= 0; i--) {
+            toCopy.push(segments.get(i));
+        }
+
+        segments = new ArrayList<>();
+
+        while (!toCopy.isEmpty()) {
+            Matchings<T> segment = toCopy.pop();
+
+            // the segment may be flattened concurrently by another thread sharing it
+            synchronized (segment) {
+                for (Iterator<Matching<T>> it = segment.ownIterator(); it.hasNext(); ) {
+                    add(it.next());
+                }
+
+                for (int i = segment.segments.size() - 1; i >= 0; i--) {
+                    toCopy.push(segment.segments.get(i));
+                }
+            }
         }
     }
 
     /**
      * Returns a <code>Matchings</code> instance containing for every matched Artifact in this <code>Matchings</code>
      * the <code>Matching</code> containing it that has the highest score.
+     * <p>
+     * Usually every artifact is contained in at most one <code>Matching</code> with a score above 0. This is checked in a
+     * single pass and all such <code>Matching</code>s are returned. Otherwise the conflicts are resolved by
+     * {@link #resolveConflicts()}.
      *
      * @return a new <code>Matchings</code> instance
      */
     public Matchings<T> optimized() {
-        Map<Artifact<T>, List<Matching<T>>> matchings = new HashMap<>();
+        Map<T, Matching<T>> byArtifact = new IdentityHashMap<>();
+        List<Matching<T>> filtered = new ArrayList<>();
 
-        forEach(matching -> {
-            UnorderedTuple<T, T> artifacts = matching.getMatchedArtifacts();
-            BiFunction<Artifact<T>, List<Matching<T>>, List<Matching<T>>> adder = (artifact, list) -> {
+        for (Matching<T> matching : this) {
 
-                if (list == null) {
-                    list = new ArrayList<>();
-                }
+            if (matching.getScore() == 0) {
+                continue;
+            }
+
+            boolean conflict = byArtifact.put(matching.getLeft(), matching) != null;
+            conflict |= byArtifact.put(matching.getRight(), matching) != null;
+
+            if (conflict) {
+                return resolveConflicts();
+            }
 
-                list.add(matching);
+            filtered.add(matching);
+        }
+
+        Matchings<T> res = new Matchings<>();
+        res.addAll(filtered);
+
+        return res;
+    }
+
+    /**
+     * Implements {@link #optimized()} for <code>Matchings</code> in which an artifact is contained in multiple
+     * <code>Matching</code>s with a score above 0. For every artifact (in the order in which they are first
+     * encountered) the <code>Matching</code> with the highest percentage is chosen whose artifacts are not already
+     * matched by a previously chosen <code>Matching</code>.
+     *
+     * @return a new <code>Matchings</code> instance
+     */
+    Matchings<T> resolveConflicts() {
+        Map<Artifact<T>, List<Matching<T>>> matchings = new LinkedHashMap<>();
 
-                return list;
-            };
+        forEach(matching -> {
+            UnorderedTuple<T, T> artifacts = matching.getMatchedArtifacts();
 
-            matchings.compute(artifacts.getX(), adder);
-            matchings.compute(artifacts.getY(), adder);
+            matchings.computeIfAbsent(artifacts.getX(), a -> new ArrayList<>()).add(matching);
+            matchings.computeIfAbsent(artifacts.getY(), a -> new ArrayList<>()).add(matching);
         });
 
         Set<Matching<T>> filtered = new HashSet<>();
@@ -299,17 +443,22 @@ public class Matchings<T extends Artifact<T>> extends HashSet<Matching<T>> {
      * @return the corresponding right artifact.
      * @author paul
      */
-    public Optional<T> queryRightByLeftId(String id) {
+    public synchronized Optional<T> queryRightByLeftId(String id) {
         T right = null;
         int minDis = Integer.MAX_VALUE;
 
-        for (Matching<T> m : this) {
-            if (m.getLeft().getId().equals(id)) {
-                int dis = Math.abs(m.getRight().getNumber() - m.getLeft().getNumber());
-                if (dis < minDis) {
-                    minDis = dis;
-                    right = m.getRight();
-                }
+        flatten();
+
+        if (leftIdIndex == null) {
+            leftIdIndex = new HashMap<>();
+            forEach(m -> addToIndex(leftIdIndex, m.getLeft().getId(), m));
+        }
+
+        for (Matching<T> m : leftIdIndex.getOrDefault(id, Collections.emptyList())) {
+            int dis = Math.abs(m.getRight().getNumber() - m.getLeft().getNumber());
+            if (dis < minDis) {
+                minDis = dis;
+                right = m.getRight();
             }
         }
 
@@ -318,4 +467,297 @@ public class Matchings<T extends Artifact<T>> extends HashSet<Matching<T>> {
         }
         return Optional.of(right);
     }
+
+    @Override
+    public synchronized boolean add(Matching<T> matching) {
+        flatten();
+
+        if (!super.add(matching)) {
+            return false;
+        }
+
+        if (pairIndex != null) {
+            index(matching);
+        }
+
+        if (leftIdIndex != null) {
+            addToIndex(leftIdIndex, matching.getLeft().getId(), matching);
+        }
+
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public synchronized boolean remove(Object o) {
+
+        if (!super.remove(o)) {
+
+            if (segments.isEmpty()) {
+                return false;
+            }
+
+            flatten();
+
+            if (!super.remove(o)) {
+                return false;
+            }
+        }
+
+        unIndex((Matching<T>) o);
+        return true;
+    }
+
+    @Override
+    public synchronized void clear() {
+        super.clear();
+        segments = new ArrayList<>();
+        dropIndexes();
+    }
+
+    @Override
+    public synchronized int size() {
+        flatten();
+        return super.size();
+    }
+
+    @Override
+    public synchronized boolean isEmpty() {
+        flatten();
+        return super.isEmpty();
+    }
+
+    @Override
+    public synchronized boolean contains(Object o) {
+        return super.contains(o) || (!segments.isEmpty() && flattenedContains(o));
+    }
+
+    /**
+     * Flattens this <code>Set</code> and checks whether it contains <code>o</code> afterwards.
+     *
+     * @param o
+     *         the element to search for
+     * @return whether this <code>Set</code> contains <code>o</code>
+     */
+    private boolean flattenedContains(Object o) {
+        flatten();
+        return super.contains(o);
+    }
+
+    @Override
+    public synchronized Object[] toArray() {
+        flatten();
+        return super.toArray();
+    }
+
+    @Override
+    public synchronized <E> E[] toArray(E[] a) {
+        flatten();
+        return super.toArray(a);
+    }
+
+    @Override
+    public synchronized Spliterator<Matching<T>> spliterator() {
+        flatten();
+        return super.spliterator();
+    }
+
+    /**
+     * Returns an <code>Iterator</code> over the <code>Matching</code>s that were added directly to this
+     * <code>Set</code>, ignoring its segments.
+     *
+     * @return an <code>Iterator</code> over the own <code>Matching</code>s of this <code>Set</code>
+     */
+    private Iterator<Matching<T>> ownIterator() {
+        return super.iterator();
+    }
+
+    @Override
+    public synchronized Iterator<Matching<T>> iterator() {
+        flatten();
+
+        Iterator<Matching<T>> it = super.iterator();
+
+        return new Iterator<Matching<T>>() {
+
+            private Matching<T> current;
+
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public Matching<T> next() {
+                return current = it.next();
+            }
+
+            @Override
+            public void remove() {
+                it.remove();
+                unIndex(current);
+            }
+        };
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public synchronized Object clone() {
+        flatten();
+
+        Matchings<T> clone = (Matchings<T>) super.clone();
+        clone.segments = new ArrayList<>();
+        clone.dropIndexes();
+
+        return clone;
+    }
+
+    /**
+     * Flattens this <code>Set</code> before it is serialized since its segments are not.
+     *
+     * @return this <code>Matchings</code> instance
+     */
+    private synchronized Object writeReplace() {
+        flatten();
+        return this;
+    }
+
+    /**
+     * Restores the (empty) list of segments of a deserialized <code>Matchings</code> instance.
+     *
+     * @param in
+     *         the stream to read from
+     * @throws IOException
+     *         if reading from <code>in</code> fails
+     * @throws ClassNotFoundException
+     *         if the class of a serialized object can not be found
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        segments = new ArrayList<>();
+    }
+
+    /**
+     * Builds the lookup indexes over all own <code>Matching</code>s currently in this <code>Set</code> if that has not
+     * happened yet. <code>Matching</code>s copied in from segments are indexed by {@link #add(Matching)}.
+     */
+    private void buildIndexes() {
+
+        if (pairIndex != null) {
+            return;
+        }
+
+        Map<UnorderedTuple<T, T>, Matching<T>> pairs = new HashMap<>();
+        Map<T, List<Matching<T>>> lefts = new HashMap<>();
+        Map<T, List<Matching<T>>> rights = new HashMap<>();
+
+        for (Iterator<Matching<T>> it = ownIterator(); it.hasNext(); ) {
+            Matching<T> matching = it.next();
+
+            pairs.putIfAbsent(matching.getMatchedArtifacts(), matching);
+            addToIndex(lefts, matching.getLeft(), matching);
+            addToIndex(rights, matching.getRight(), matching);
+        }
+
+        leftIndex = lefts;
+        rightIndex = rights;
+        pairIndex = pairs;
+    }
+
+    /**
+     * Discards all lookup indexes. They will be rebuilt on the next lookup.
+     */
+    private void dropIndexes() {
+        pairIndex = null;
+        leftIndex = null;
+        rightIndex = null;
+        leftIdIndex = null;
+    }
+
+    /**
+     * Adds the given <code>matching</code> to the (already built) pair, left and right indexes.
+     *
+     * @param matching
+     *         the <code>Matching</code> to add
+     */
+    private void index(Matching<T> matching) {
+        pairIndex.putIfAbsent(matching.getMatchedArtifacts(), matching);
+        addToIndex(leftIndex, matching.getLeft(), matching);
+        addToIndex(rightIndex, matching.getRight(), matching);
+    }
+
+    /**
+     * Removes the given <code>matching</code> from all indexes that have been built.
+     *
+     * @param matching
+     *         the <code>Matching</code> to remove
+     */
+    private void unIndex(Matching<T> matching) {
+
+        if (pairIndex != null) {
+            UnorderedTuple<T, T> artifacts = matching.getMatchedArtifacts();
+
+            if (pairIndex.remove(artifacts, matching)) {
+
+                // Another Matching (of a different class) may match the same artifacts.
+                for (Matching<T> other : leftIndex.getOrDefault(matching.getLeft(), Collections.emptyList())) {
+
+                    if (other != matching && other.getMatchedArtifacts().equals(artifacts)) {
+                        pairIndex.put(artifacts, other);
+                        break;
+                    }
+                }
+            }
+
+            removeFromIndex(leftIndex, matching.getLeft(), matching);
+            removeFromIndex(rightIndex, matching.getRight(), matching);
+        }
+
+        if (leftIdIndex != null) {
+            removeFromIndex(leftIdIndex, matching.getLeft().getId(), matching);
+        }
+    }
+
+    /**
+     * Appends the given <code>matching</code> to the list stored for <code>key</code> in the <code>index</code>.
+     *
+     * @param index
+     *         the index to add to
+     * @param key
+     *         the key to add the <code>Matching</code> under
+     * @param matching
+     *         the <code>Matching</code> to add
+     * @param <K>
+     *         the type of the keys of the index
+     */
+    private static <K, T extends Artifact<T>> void addToIndex(Map<K, List<Matching<T>>> index, K key, Matching<T> matching) {
+        index.computeIfAbsent(key, k -> new ArrayList<>(1)).add(matching);
+    }
+
+    /**
+     * Removes the given <code>matching</code> (by identity) from the list stored for <code>key</code> in the
+     * <code>index</code>.
+     *
+     * @param index
+     *         the index to remove from
+     * @param key
+     *         the key the <code>Matching</code> was added under
+     * @param matching
+     *         the <code>Matching</code> to remove
+     * @param <K>
+     *         the type of the keys of the index
+     */
+    private static <K, T extends Artifact<T>> void removeFromIndex(Map<K, List<Matching<T>>> index, K key, Matching<T> matching) {
+        List<Matching<T>> matchings = index.get(key);
+
+        if (matchings == null) {
+            return;
+        }
+
+        matchings.removeIf(m -> m == matching);
+
+        if (matchings.isEmpty()) {
+            index.remove(key);
+        }
+    }
 }
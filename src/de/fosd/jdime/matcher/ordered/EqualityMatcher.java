@@ -93,7 +93,7 @@ public class EqualityMatcher<T extends Artifact<T>> extends OrderedMatcher<T> {
                 allMatched = false;
             }
 
-            matchings.addAll(childMatchings);
+            matchings.addMatchings(childMatchings);
         }
 
         if (allMatched && left.getNumChildren() == right.getNumChildren() && left.matches(right)) {
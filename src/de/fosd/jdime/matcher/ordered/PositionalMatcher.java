@@ -0,0 +1,173 @@
+/**
+ * Copyright (C) 2013-2014 Olaf Lessenich
+ * Copyright (C) 2014-2017 University of Passau, Germany
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ * Contributors:
+ *     Olaf Lessenich <lessenic@fim.uni-passau.de>
+ *     Georg Seibt <seibt@fim.uni-passau.de>
+ */
+package de.fosd.jdime.matcher.ordered;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import de.fosd.jdime.artifact.Artifact;
+import de.fosd.jdime.artifact.TreeHash;
+import de.fosd.jdime.config.merge.MergeContext;
+import de.fosd.jdime.matcher.MatcherInterface;
+import de.fosd.jdime.matcher.matching.Matching;
+import de.fosd.jdime.matcher.matching.Matchings;
+
+/**
+ * A cheap <code>OrderedMatcher</code> that only considers O(m + n) pairs of children. It is used by the
+ * <code>Matcher</code> instead of the more expensive matchers once its work budget is exhausted.
+ * <p>
+ * First, children with identical tree hashes are paired greedily in the order of the left children such that no two
+ * pairs cross. Then the unpaired children between two consecutive pairs are paired by their position. Only pairs of
+ * children that match are matched recursively.
+ *
+ * @param <T>
+ *         type of artifacts
+ */
+public class PositionalMatcher<T extends Artifact<T>> extends OrderedMatcher<T> {
+
+    private static final String ID = PositionalMatcher.class.getSimpleName();
+
+    /**
+     * Constructs a new <code>PositionalMatcher</code> using the given <code>matcher</code> for recursive calls.
+     *
+     * @param matcher
+     *         the parent <code>MatcherInterface</code>
+     */
+    public PositionalMatcher(MatcherInterface<T> matcher) {
+        super(matcher);
+    }
+
+    @Override
+    public Matchings<T> match(MergeContext context, T left, T right) {
+        int rootMatching = left.matches(right) ? 1 : 0;
+
+        List<T> leftChildren = left.getChildren();
+        List<T> rightChildren = right.getChildren();
+        Map<TreeHash, Deque<Integer>> rightByHash = new HashMap<>();
+
+        for (int j = 0; j < rightChildren.size(); j++) {
+            rightByHash.computeIfAbsent(rightChildren.get(j).getTreeHash(), h -> new ArrayDeque<>()).add(j);
+        }
+
+        List<Matchings<T>> children = new ArrayList<>();
+        int score = 0;
+        int lastLeft = -1;
+        int lastRight = -1;
+
+        for (int i = 0; i < leftChildren.size(); i++) {
+            Deque<Integer> candidates = rightByHash.get(leftChildren.get(i).getTreeHash());
+
+            while (candidates != null && !candidates.isEmpty() && candidates.peekFirst() <= lastRight) {
+                candidates.pollFirst();
+            }
+
+            if (candidates == null || candidates.isEmpty()) {
+                continue;
+            }
+
+            int j = candidates.pollFirst();
+
+            score += matchGap(context, leftChildren, lastLeft + 1, i, rightChildren, lastRight + 1, j, children);
+            score += matchPair(context, leftChildren.get(i), rightChildren.get(j), children);
+
+            lastLeft = i;
+            lastRight = j;
+        }
+
+        score += matchGap(context, leftChildren, lastLeft + 1, leftChildren.size(),
+                          rightChildren, lastRight + 1, rightChildren.size(), children);
+
+        Matchings<T> matchings = Matchings.of(left, right, score + rootMatching);
+        matchings.get(left, right).get().setAlgorithm(ID);
+        matchings.addAllMatchings(children);
+
+        return matchings;
+    }
+
+    /**
+     * Pairs the children in the given ranges by their position and matches the pairs that match.
+     *
+     * @param context
+     *         the <code>MergeContext</code>
+     * @param leftChildren
+     *         the left children
+     * @param leftFrom
+     *         the start of the range of left children (inclusive)
+     * @param leftTo
+     *         the end of the range of left children (exclusive)
+     * @param rightChildren
+     *         the right children
+     * @param rightFrom
+     *         the start of the range of right children (inclusive)
+     * @param rightTo
+     *         the end of the range of right children (exclusive)
+     * @param children
+     *         the list to add the resulting <code>Matchings</code> to
+     * @return the sum of the scores of the resulting <code>Matchings</code>
+     */
+    private int matchGap(MergeContext context, List<T> leftChildren, int leftFrom, int leftTo,
+                         List<T> rightChildren, int rightFrom, int rightTo, List<Matchings<T>> children) {
+        int score = 0;
+
+        for (int i = leftFrom, j = rightFrom; i < leftTo && j < rightTo; i++, j++) {
+            T leftChild = leftChildren.get(i);
+            T rightChild = rightChildren.get(j);
+
+            if (leftChild.matches(rightChild)) {
+                score += matchPair(context, leftChild, rightChild, children);
+            }
+        }
+
+        return score;
+    }
+
+    /**
+     * Matches the given pair of children and adds the resulting <code>Matchings</code> to <code>children</code> if
+     * their score is positive.
+     *
+     * @param context
+     *         the <code>MergeContext</code>
+     * @param leftChild
+     *         the left child
+     * @param rightChild
+     *         the right child
+     * @param children
+     *         the list to add the resulting <code>Matchings</code> to
+     * @return the score of the <code>Matching</code> of the pair
+     */
+    private int matchPair(MergeContext context, T leftChild, T rightChild, List<Matchings<T>> children) {
+        Matchings<T> w = matcher.match(context, leftChild, rightChild);
+        Matching<T> matching = w.get(leftChild, rightChild).get();
+
+        if (matching.getScore() > 0) {
+            children.add(w);
+        }
+
+        return matching.getScore();
+    }
+}
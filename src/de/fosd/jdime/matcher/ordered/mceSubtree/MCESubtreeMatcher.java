@@ -23,6 +23,7 @@
  */
 package de.fosd.jdime.matcher.ordered.mceSubtree;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
@@ -56,7 +57,7 @@ public class MCESubtreeMatcher<T extends Artifact<T>> extends OrderedMatcher<T>
      */
     public MCESubtreeMatcher(MatcherInterface<T> matcher) {
         super(matcher);
-        this.decompositionCache = new HashMap<>();
+        this.decompositionCache = Collections.synchronizedMap(new HashMap<>());
     }
 
     @Override
@@ -75,7 +76,7 @@ public class MCESubtreeMatcher<T extends Artifact<T>> extends OrderedMatcher<T>
 
         for (T lChild : left.getChildren()) {
             for (T rChild : right.getChildren()) {
-                matchings.addAll(matcher.match(context, lChild, rChild));
+                matchings.addMatchings(matcher.match(context, lChild, rChild));
             }
         }
 
@@ -0,0 +1,302 @@
+/**
+ * Copyright (C) 2013-2014 Olaf Lessenich
+ * Copyright (C) 2014-2017 University of Passau, Germany
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ * Contributors:
+ *     Olaf Lessenich <lessenic@fim.uni-passau.de>
+ *     Georg Seibt <seibt@fim.uni-passau.de>
+ */
+package de.fosd.jdime.matcher.ordered.simpleTree;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import de.fosd.jdime.artifact.TreeHash;
+
+/**
+ * Aligns two sequences of tree hashes by computing a longest common subsequence of equal hashes. Hashes that occur
+ * exactly once in both sequences are aligned first using patience sorting (a longest increasing subsequence of their
+ * positions). The gaps between these anchors are then aligned using the linear space variant of the O(ND) difference
+ * algorithm by Myers.
+ */
+final class HashAlignment {
+
+    private final TreeHash[] left;
+    private final TreeHash[] right;
+
+    /**
+     * For every index into {@link #left} the index into {@link #right} it is aligned with or -1.
+     */
+    private final int[] aligned;
+
+    /**
+     * Constructs a new <code>HashAlignment</code>.
+     *
+     * @param left
+     *         the left sequence
+     * @param right
+     *         the right sequence
+     */
+    private HashAlignment(TreeHash[] left, TreeHash[] right) {
+        this.left = left;
+        this.right = right;
+        this.aligned = new int[left.length];
+
+        Arrays.fill(aligned, -1);
+    }
+
+    /**
+     * Aligns the given sequences of tree hashes. Returns an array containing for every index into <code>left</code>
+     * the index into <code>right</code> it is aligned with or -1 if it is not aligned. The aligned indices are
+     * strictly increasing.
+     *
+     * @param left
+     *         the left sequence
+     * @param right
+     *         the right sequence
+     * @return the alignment
+     */
+    static int[] align(TreeHash[] left, TreeHash[] right) {
+        HashAlignment alignment = new HashAlignment(left, right);
+        int lastLeft = 0;
+        int lastRight = 0;
+
+        for (int[] anchor : alignment.anchors()) {
+            alignment.myers(lastLeft, anchor[0], lastRight, anchor[1]);
+            alignment.aligned[anchor[0]] = anchor[1];
+
+            lastLeft = anchor[0] + 1;
+            lastRight = anchor[1] + 1;
+        }
+
+        alignment.myers(lastLeft, left.length, lastRight, right.length);
+
+        return alignment.aligned;
+    }
+
+    /**
+     * Returns the pairs of indices of the hashes that are unique in both sequences and form a longest increasing
+     * subsequence of their positions.
+     *
+     * @return the anchors ordered by their indices
+     */
+    private List<int[]> anchors() {
+        Map<TreeHash, Integer> leftIndex = uniqueIndices(left);
+        Map<TreeHash, Integer> rightIndex = uniqueIndices(right);
+
+        // the right indices of the hashes unique in both sequences, in left order
+        List<int[]> candidates = new ArrayList<>();
+
+        for (int i = 0; i < left.length; i++) {
+            Integer l = leftIndex.get(left[i]);
+            Integer r = rightIndex.get(left[i]);
+
+            if (l != null && l >= 0 && r != null && r >= 0) {
+                candidates.add(new int[] {i, r});
+            }
+        }
+
+        // patience sorting: tails[p] is the candidate ending the best increasing subsequence of length p + 1
+        int[] tails = new int[candidates.size()];
+        int[] previous = new int[candidates.size()];
+        int piles = 0;
+
+        for (int c = 0; c < candidates.size(); c++) {
+            int r = candidates.get(c)[1];
+            int lo = 0;
+            int hi = piles;
+
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+
+                if (candidates.get(tails[mid])[1] < r) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+
+            previous[c] = lo > 0 ? tails[lo - 1] : -1;
+            tails[lo] = c;
+
+            if (lo == piles) {
+                piles++;
+            }
+        }
+
+        int[][] anchors = new int[piles][];
+
+        for (int p = piles - 1, c = piles > 0 ? tails[piles - 1] : -1; p >= 0; p--, c = previous[c]) {
+            anchors[p] = candidates.get(c);
+        }
+
+        return Arrays.asList(anchors);
+    }
+
+    /**
+     * Maps every hash in <code>hashes</code> to its index if it occurs only once or to -1 otherwise.
+     *
+     * @param hashes
+     *         the sequence of hashes
+     * @return the indices of the hashes
+     */
+    private static Map<TreeHash, Integer> uniqueIndices(TreeHash[] hashes) {
+        Map<TreeHash, Integer> indices = new HashMap<>();
+
+        for (int i = 0; i < hashes.length; i++) {
+            indices.merge(hashes[i], i, (a, b) -> -1);
+        }
+
+        return indices;
+    }
+
+    /**
+     * Aligns <code>left[leftFrom, leftTo)</code> with <code>right[rightFrom, rightTo)</code> by computing a shortest
+     * edit script using the linear space variant of the O(ND) algorithm by Myers and recording its diagonals in
+     * {@link #aligned}. The ranges are split at the middle snake of a shortest edit script and both halves are aligned
+     * recursively, so that only O(N + M) memory is needed no matter how different the ranges are.
+     *
+     * @param leftFrom
+     *         the first index into {@link #left} (inclusive)
+     * @param leftTo
+     *         the last index into {@link #left} (exclusive)
+     * @param rightFrom
+     *         the first index into {@link #right} (inclusive)
+     * @param rightTo
+     *         the last index into {@link #right} (exclusive)
+     */
+    private void myers(int leftFrom, int leftTo, int rightFrom, int rightTo) {
+
+        while (leftFrom < leftTo && rightFrom < rightTo && left[leftFrom].equals(right[rightFrom])) {
+            aligned[leftFrom++] = rightFrom++;
+        }
+
+        while (leftFrom < leftTo && rightFrom < rightTo && left[leftTo - 1].equals(right[rightTo - 1])) {
+            aligned[--leftTo] = --rightTo;
+        }
+
+        if (leftFrom == leftTo || rightFrom == rightTo) {
+            return;
+        }
+
+        /*
+         * Without a common prefix or suffix the shortest edit script has at least two edits. Both halves around the
+         * middle snake therefore need fewer edits than the whole range and the recursion terminates.
+         */
+        int[] snake = middleSnake(leftFrom, leftTo, rightFrom, rightTo);
+
+        for (int x = snake[0], y = snake[1]; x < snake[2]; x++, y++) {
+            aligned[x] = y;
+        }
+
+        myers(leftFrom, snake[0], rightFrom, snake[1]);
+        myers(snake[2], leftTo, snake[3], rightTo);
+    }
+
+    /**
+     * Finds the middle snake of a shortest edit script for <code>left[leftFrom, leftTo)</code> and
+     * <code>right[rightFrom, rightTo)</code> by searching for furthest reaching paths from both ends of the ranges
+     * simultaneously until they overlap.
+     *
+     * @param leftFrom
+     *         the first index into {@link #left} (inclusive)
+     * @param leftTo
+     *         the last index into {@link #left} (exclusive)
+     * @param rightFrom
+     *         the first index into {@link #right} (inclusive)
+     * @param rightTo
+     *         the last index into {@link #right} (exclusive)
+     * @return the start and end of the snake as <code>{leftStart, rightStart, leftEnd, rightEnd}</code>
+     */
+    private int[] middleSnake(int leftFrom, int leftTo, int rightFrom, int rightTo) {
+        int n = leftTo - leftFrom;
+        int m = rightTo - rightFrom;
+        int delta = n - m;
+        boolean odd = (delta & 1) != 0;
+        int max = (n + m + 1) / 2;
+        int offset = max + 1;
+
+        // forward[k] is the furthest x on diagonal k = x - y reached from (0, 0)
+        int[] forward = new int[2 * max + 3];
+
+        // backward[k] is the furthest x on diagonal k = x - y reached from (n, m) in the reversed ranges
+        int[] backward = new int[2 * max + 3];
+
+        for (int d = 0; d <= max; d++) {
+
+            for (int k = -d; k <= d; k += 2) {
+                int x;
+
+                if (k == -d || (k != d && forward[offset + k - 1] < forward[offset + k + 1])) {
+                    x = forward[offset + k + 1];
+                } else {
+                    x = forward[offset + k - 1] + 1;
+                }
+
+                int y = x - k;
+                int startX = x;
+                int startY = y;
+
+                while (x < n && y < m && left[leftFrom + x].equals(right[rightFrom + y])) {
+                    x++;
+                    y++;
+                }
+
+                forward[offset + k] = x;
+
+                int reverseK = delta - k;
+
+                if (odd && reverseK >= -(d - 1) && reverseK <= d - 1 && x + backward[offset + reverseK] >= n) {
+                    return new int[] {leftFrom + startX, rightFrom + startY, leftFrom + x, rightFrom + y};
+                }
+            }
+
+            for (int k = -d; k <= d; k += 2) {
+                int x;
+
+                if (k == -d || (k != d && backward[offset + k - 1] < backward[offset + k + 1])) {
+                    x = backward[offset + k + 1];
+                } else {
+                    x = backward[offset + k - 1] + 1;
+                }
+
+                int y = x - k;
+                int startX = x;
+                int startY = y;
+
+                while (x < n && y < m && left[leftTo - 1 - x].equals(right[rightTo - 1 - y])) {
+                    x++;
+                    y++;
+                }
+
+                backward[offset + k] = x;
+
+                int forwardK = delta - k;
+
+                if (!odd && forwardK >= -d && forwardK <= d && x + forward[offset + forwardK] >= n) {
+                    return new int[] {leftTo - x, rightTo - y, leftTo - startX, rightTo - startY};
+                }
+            }
+        }
+
+        throw new IllegalStateException("No middle snake found.");
+    }
+}
@@ -23,20 +23,43 @@
  */
 package de.fosd.jdime.matcher.ordered.simpleTree;
 
-import java.lang.reflect.Array;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import de.fosd.jdime.artifact.Artifact;
+import de.fosd.jdime.artifact.TreeHash;
 import de.fosd.jdime.config.merge.MergeContext;
+import de.fosd.jdime.matcher.ChildPairMatcher;
 import de.fosd.jdime.matcher.MatcherInterface;
+import de.fosd.jdime.matcher.cost_model.CMMode;
 import de.fosd.jdime.matcher.matching.Matching;
 import de.fosd.jdime.matcher.matching.Matchings;
 import de.fosd.jdime.matcher.ordered.OrderedMatcher;
 
+import static de.fosd.jdime.config.merge.MergeContext.LOOKAHEAD_OFF;
+
 /**
  * This ordered matcher implements a variant of Yang's Simple Tree Matching.
  * TODO: This needs more explanation, I'll fix that soon.
+ * <p>
+ * If {@link MergeContext#isMatcherPruning()} is enabled, a child pair is only matched recursively if an upper bound
+ * of its score could make the diagonal step in the DP the best choice for its cell. The upper bound is the size of
+ * the smaller of the two subtrees, or 0 if the roots of the subtrees do not match and lookahead is disabled for them.
+ * Pruning therefore does not change any score or direction in the DP.
+ * <p>
+ * If both artifacts have at least {@link MergeContext#getMatcherDiffMinChildren()} children, the children are first
+ * aligned by their tree hashes (see {@link HashAlignment}). Aligned pairs of identical children are matched directly
+ * and the DP only runs on the gaps between them.
+ * <p>
+ * If {@link MergeContext#isMatcherLean()} is enabled, the DP only keeps the <code>Matchings</code> of child pairs
+ * whose cell may still be on the path chosen by the traceback. Every cell counts the cells of the DP whose direction
+ * points to it. Once a row is complete, no later cell can point into the rows above it, so the <code>Matchings</code>
+ * of cells in these rows that are no longer pointed to are released along with those of the cells only they point to.
+ * <p>
+ * Otherwise, the child pairs are matched up front by the <code>ChildPairMatcher</code>, in parallel if
+ * {@link MergeContext#isMatcherParallel()} is enabled. With pruning, hash alignment or in the lean mode they are
+ * matched when the DP requires them and therefore always sequentially.
  *
  * @param <T>
  *         type of artifacts
@@ -46,6 +69,11 @@ public class SimpleTreeMatcher<T extends Artifact<T>> extends OrderedMatcher<T>
 
     private static final String ID = SimpleTreeMatcher.class.getSimpleName();
 
+    /**
+     * The number of child pairs that were not matched because of pruning.
+     */
+    private final AtomicInteger prunedPairs;
+
     /**
      * Constructs a new <code>SimpleTreeMatcher</code> using the given <code>matcher</code> for recursive calls.
      *
@@ -54,6 +82,17 @@ public class SimpleTreeMatcher<T extends Artifact<T>> extends OrderedMatcher<T>
      */
     public SimpleTreeMatcher(MatcherInterface<T> matcher) {
         super(matcher);
+        this.prunedPairs = new AtomicInteger();
+    }
+
+    /**
+     * Returns the number of child pairs that were skipped because of pruning since the last call of this method and
+     * resets it to 0.
+     *
+     * @return the number of pruned child pairs
+     */
+    public int getAndResetPrunedPairs() {
+        return prunedPairs.getAndSet(0);
     }
 
     /**
@@ -71,10 +110,155 @@ public class SimpleTreeMatcher<T extends Artifact<T>> extends OrderedMatcher<T>
         // number of first-level subtrees of t2
         int n = right.getNumChildren();
 
+        boolean lazy = !context.isUseMCESubtreeMatcher() && context.getCMMatcherMode() != CMMode.INTEGRATED;
+        boolean prune = lazy && context.isMatcherPruning();
+        int diffMinChildren = context.getMatcherDiffMinChildren();
+        boolean diff = lazy && diffMinChildren > 0 && m >= diffMinChildren && n >= diffMinChildren;
+        boolean lean = context.isMatcherLean();
+
+        Matchings<T>[][] childMatchings = null;
+        int[] leftSizes = null;
+        int[] rightSizes = null;
+
+        if (prune) {
+            leftSizes = left.getChildren().stream().mapToInt(Artifact::getTreeSize).toArray();
+            rightSizes = right.getChildren().stream().mapToInt(Artifact::getTreeSize).toArray();
+        } else if (!diff && !lean) {
+            childMatchings = ChildPairMatcher.matchChildren(context, matcher, left, right);
+        }
+
+        Range<T> range = new Range<>(context, left, right, lean, childMatchings, leftSizes, rightSizes);
+        List<Matchings<T>> children = new ArrayList<>();
+        int score = 0;
+
+        if (diff) {
+            TreeHash[] leftHashes = left.getChildren().stream().map(Artifact::getTreeHash).toArray(TreeHash[]::new);
+            TreeHash[] rightHashes = right.getChildren().stream().map(Artifact::getTreeHash).toArray(TreeHash[]::new);
+            int[] aligned = HashAlignment.align(leftHashes, rightHashes);
+            int lastLeft = 0;
+            int lastRight = 0;
+
+            for (int i = 0; i < m; i++) {
+
+                if (aligned[i] < 0) {
+                    continue;
+                }
+
+                int j = aligned[i];
+
+                score += match(range, lastLeft, i, lastRight, j, children);
+
+                Matchings<T> w = matcher.match(context, left.getChild(i), right.getChild(j));
+                score += w.get(left.getChild(i), right.getChild(j)).get().getScore();
+                children.add(w);
+
+                lastLeft = i + 1;
+                lastRight = j + 1;
+            }
+
+            score += match(range, lastLeft, m, lastRight, n, children);
+        } else {
+            score = match(range, 0, m, 0, n, children);
+        }
+
+        if (range.pruned > 0) {
+            prunedPairs.addAndGet(range.pruned);
+        }
+
+        // total matching score for these trees is the score of the matched children + the matching of the root nodes
+        Matching<T> matching = new Matching<>(left, right, score + rootMatching);
+        matching.setAlgorithm(ID);
+
+        Matchings<T> matchings = new Matchings<>();
+        matchings.add(matching);
+        matchings.addAllMatchings(children);
+
+        return matchings;
+    }
+
+    /**
+     * The children of two artifacts and the data used for matching ranges of them.
+     *
+     * @param <T>
+     *         type of artifacts
+     */
+    private static final class Range<T extends Artifact<T>> {
+
+        private final MergeContext context;
+        private final T left;
+        private final T right;
+
+        /**
+         * Whether the <code>Matchings</code> of child pairs are to be released as soon as they can no longer be on
+         * the path chosen by the traceback.
+         */
+        private final boolean lean;
+
+        /**
+         * The precomputed <code>Matchings</code> of all child pairs or <code>null</code> if they are to be matched
+         * when needed.
+         */
+        private final Matchings<T>[][] childMatchings;
+
+        /**
+         * The sizes of the trees rooted in the children or <code>null</code> if pruning is disabled.
+         */
+        private final int[] leftSizes;
+        private final int[] rightSizes;
+
+        private int pruned;
+
+        private Range(MergeContext context, T left, T right, boolean lean, Matchings<T>[][] childMatchings,
+                      int[] leftSizes, int[] rightSizes) {
+            this.context = context;
+            this.left = left;
+            this.right = right;
+            this.lean = lean;
+            this.childMatchings = childMatchings;
+            this.leftSizes = leftSizes;
+            this.rightSizes = rightSizes;
+            this.pruned = 0;
+        }
+    }
+
+    /**
+     * Computes the ordered matching of the children <code>[leftFrom, leftTo)</code> of the left artifact with the
+     * children <code>[rightFrom, rightTo)</code> of the right artifact using the Simple Tree Matching DP. The
+     * <code>Matchings</code> of the matched child pairs are added to <code>children</code>.
+     *
+     * @param range
+     *         the artifacts whose children are to be matched
+     * @param leftFrom
+     *         the index of the first left child (inclusive)
+     * @param leftTo
+     *         the index of the last left child (exclusive)
+     * @param rightFrom
+     *         the index of the first right child (inclusive)
+     * @param rightTo
+     *         the index of the last right child (exclusive)
+     * @param children
+     *         the <code>List</code> to add the <code>Matchings</code> of the matched child pairs to
+     * @return the score of the matching
+     */
+    private int match(Range<T> range, int leftFrom, int leftTo, int rightFrom, int rightTo,
+                      List<Matchings<T>> children) {
+        MergeContext context = range.context;
+        int m = leftTo - leftFrom;
+        int n = rightTo - rightFrom;
+
+        if (m == 0 || n == 0) {
+            return 0;
+        }
+
         int[][] matrixM = new int[m + 1][n + 1];
+        Direction[][] matrixT = new Direction[m + 1][n + 1];
 
+        // the Matchings of the cells with a DIAG direction
         @SuppressWarnings("unchecked")
-        Entry<T>[][] matrixT = (Entry<T>[][]) Array.newInstance(Entry.class, m + 1, n + 1);
+        Matchings<T>[][] matrixW = (Matchings<T>[][]) new Matchings<?>[m + 1][n + 1];
+
+        // in the lean mode, the number of cells whose direction points to a cell, -1 once its Matchings are released
+        int[][] refs = range.lean ? new int[m + 1][n + 1] : null;
 
         // initialize first column matrix
         for (int i = 0; i <= m; i++) {
@@ -86,40 +270,94 @@ public class SimpleTreeMatcher<T extends Artifact<T>> extends OrderedMatcher<T>
             matrixM[0][j] = 0;
         }
 
+        boolean prune = range.leftSizes != null;
+
         for (int i = 1; i <= m; i++) {
             for (int j = 1; j <= n; j++) {
-                T leftChild = left.getChild(i - 1);
-                T rightChild = right.getChild(j - 1);
+                T leftChild = range.left.getChild(leftFrom + i - 1);
+                T rightChild = range.right.getChild(rightFrom + j - 1);
+
+                Matchings<T> w = null;
+                int score = 0;
+
+                if (prune) {
+                    int best = Math.max(matrixM[i][j - 1], matrixM[i - 1][j]);
+                    int bound = upperBound(context, leftChild, rightChild, range.leftSizes[leftFrom + i - 1],
+                            range.rightSizes[rightFrom + j - 1]);
+
+                    if (matrixM[i - 1][j - 1] + bound < best) {
+                        Direction direction = matrixM[i][j - 1] > matrixM[i - 1][j] ? Direction.LEFT : Direction.TOP;
+
+                        matrixM[i][j] = best;
+                        matrixT[i][j] = direction;
+                        range.pruned++;
+
+                        if (refs != null) {
+                            retain(refs, matrixT, i, j);
+                        }
 
-                Matchings<T> w = matcher.match(context, leftChild, rightChild);
-                Matching<T> matching = w.get(leftChild, rightChild).get();
+                        continue;
+                    }
+
+                    w = matcher.match(context, leftChild, rightChild);
+                } else if (range.childMatchings != null) {
+                    w = range.childMatchings[leftFrom + i - 1][rightFrom + j - 1];
+                } else {
+                    w = matcher.match(context, leftChild, rightChild);
+                }
+
+                if (w != null) {
+                    score = w.get(leftChild, rightChild).get().getScore();
+                }
 
                 if (matrixM[i][j - 1] > matrixM[i - 1][j]) {
-                    if (matrixM[i][j - 1] > matrixM[i - 1][j - 1] + matching.getScore()) {
+                    if (matrixM[i][j - 1] > matrixM[i - 1][j - 1] + score) {
                         matrixM[i][j] = matrixM[i][j - 1];
-                        matrixT[i][j] = new Entry<>(Direction.LEFT, w);
+                        matrixT[i][j] = Direction.LEFT;
                     } else {
-                        matrixM[i][j] = matrixM[i - 1][j - 1] + matching.getScore();
-                        matrixT[i][j] = new Entry<>(Direction.DIAG, w);
+                        matrixM[i][j] = matrixM[i - 1][j - 1] + score;
+                        matrixT[i][j] = Direction.DIAG;
                     }
                 } else {
-                    if (matrixM[i - 1][j] > matrixM[i - 1][j - 1] + matching.getScore()) {
+                    if (matrixM[i - 1][j] > matrixM[i - 1][j - 1] + score) {
                         matrixM[i][j] = matrixM[i - 1][j];
-                        matrixT[i][j] = new Entry<>(Direction.TOP, w);
+                        matrixT[i][j] = Direction.TOP;
                     } else {
-                        matrixM[i][j] = matrixM[i - 1][j - 1] + matching.getScore();
-                        matrixT[i][j] = new Entry<>(Direction.DIAG, w);
+                        matrixM[i][j] = matrixM[i - 1][j - 1] + score;
+                        matrixT[i][j] = Direction.DIAG;
+                    }
+                }
+
+                if (refs == null) {
+
+                    if (matrixT[i][j] == Direction.DIAG) {
+                        matrixW[i][j] = w;
+                    }
+                } else {
+
+                    // the traceback skips DIAG cells that do not increase the score
+                    if (matrixT[i][j] == Direction.DIAG && score > 0) {
+                        matrixW[i][j] = w;
                     }
+
+                    retain(refs, matrixT, i, j);
+                }
+            }
+
+            // the cells of later rows only point to cells of this row or later ones
+            if (refs != null && i > 1) {
+
+                for (int j = 1; j <= n; j++) {
+                    release(refs, matrixT, matrixW, i - 1, j);
                 }
             }
         }
 
         int i = m;
         int j = n;
-        List<Matchings<T>> children = new ArrayList<>();
 
         while (i >= 1 && j >= 1) {
-            switch (matrixT[i][j].getDirection()) {
+            switch (matrixT[i][j]) {
                 case TOP:
                     i--;
                     break;
@@ -128,7 +366,7 @@ public class SimpleTreeMatcher<T extends Artifact<T>> extends OrderedMatcher<T>
                     break;
                 case DIAG:
                     if (matrixM[i][j] > matrixM[i - 1][j - 1]) {
-                        children.add(matrixT[i][j].getMatching());
+                        children.add(matrixW[i][j]);
                     }
                     i--;
                     j--;
@@ -138,14 +376,111 @@ public class SimpleTreeMatcher<T extends Artifact<T>> extends OrderedMatcher<T>
             }
         }
 
-        // total matching score for these trees is the score of the matched children + the matching of the root nodes
-        Matching<T> matching = new Matching<>(left, right, matrixM[m][n] + rootMatching);
-        matching.setAlgorithm(ID);
+        return matrixM[m][n];
+    }
 
-        Matchings<T> matchings = new Matchings<>();
-        matchings.add(matching);
-        matchings.addAllMatchings(children);
+    /**
+     * Counts the reference of the cell <code>(i, j)</code> to the cell its direction points to.
+     *
+     * @param refs
+     *         the number of references to every cell
+     * @param matrixT
+     *         the directions of the cells
+     * @param i
+     *         the row of the cell
+     * @param j
+     *         the column of the cell
+     */
+    private static void retain(int[][] refs, Direction[][] matrixT, int i, int j) {
 
-        return matchings;
+        switch (matrixT[i][j]) {
+            case TOP:
+                refs[i - 1][j]++;
+                break;
+            case LEFT:
+                refs[i][j - 1]++;
+                break;
+            default:
+                refs[i - 1][j - 1]++;
+                break;
+        }
+    }
+
+    /**
+     * Releases the <code>Matchings</code> of the cell <code>(i, j)</code> if no other cell points to it. The cells
+     * it points to are released in turn if it held their last reference. Must only be called for cells no cell still
+     * to be computed can point to.
+     *
+     * @param refs
+     *         the number of references to every cell
+     * @param matrixT
+     *         the directions of the cells
+     * @param matrixW
+     *         the <code>Matchings</code> of the cells
+     * @param i
+     *         the row of the cell
+     * @param j
+     *         the column of the cell
+     * @param <T>
+     *         type of artifacts
+     */
+    private static <T extends Artifact<T>> void release(int[][] refs, Direction[][] matrixT, Matchings<T>[][] matrixW,
+                                                        int i, int j) {
+
+        while (i >= 1 && j >= 1 && refs[i][j] == 0) {
+            refs[i][j] = -1;
+            matrixW[i][j] = null;
+
+            switch (matrixT[i][j]) {
+                case TOP:
+                    i--;
+                    break;
+                case LEFT:
+                    j--;
+                    break;
+                default:
+                    i--;
+                    j--;
+                    break;
+            }
+
+            refs[i][j]--;
+        }
+    }
+
+    /**
+     * Returns an upper bound of the score of the <code>Matching</code> between <code>left</code> and
+     * <code>right</code>.
+     *
+     * @param context
+     *         the <code>MergeContext</code>
+     * @param left
+     *         the left <code>Artifact</code>
+     * @param right
+     *         the right <code>Artifact</code>
+     * @param leftSize
+     *         the size of the tree rooted in <code>left</code>
+     * @param rightSize
+     *         the size of the tree rooted in <code>right</code>
+     * @return the upper bound of the score
+     */
+    private int upperBound(MergeContext context, T left, T right, int leftSize, int rightSize) {
+
+        if (left.isConflict()) {
+            return 0;
+        }
+
+        if (left.isChoice()) {
+            return Integer.MAX_VALUE / 2;
+        }
+
+        boolean noLookAhead = !context.isLookAhead() || (context.getLookahead(left.getType()) == LOOKAHEAD_OFF
+                && context.getLookahead(right.getType()) == LOOKAHEAD_OFF);
+
+        if (noLookAhead && !left.matches(right)) {
+            return 0;
+        }
+
+        return Math.min(leftSize, rightSize);
     }
 }
@@ -23,14 +23,16 @@
  */
 package de.fosd.jdime.matcher.unordered;
 
+import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 import de.fosd.jdime.artifact.Artifact;
 import de.fosd.jdime.artifact.Artifacts;
+import de.fosd.jdime.artifact.TreeHash;
 import de.fosd.jdime.config.merge.MergeContext;
 import de.fosd.jdime.matcher.MatcherInterface;
 import de.fosd.jdime.matcher.matching.Matching;
@@ -39,6 +41,14 @@ import de.fosd.jdime.matcher.matching.Matchings;
 /**
  * A {@link MatcherInterface matcher} that constructs {@link Matchings} between subtrees that match according to their
  * {@link Artifact#getTreeHash()} method.
+ * <p>
+ * Before matching, {@link #matchTrees(Artifact, Artifact)} pairs the identical subtrees of the left and right trees.
+ * Subtrees whose hash is unique in both trees are paired directly. Subtrees whose hash occurs multiple times are
+ * disambiguated by their context: a left subtree is paired with the right subtree with the same hash whose parent
+ * matches its parent and that has the same position among the identical siblings, provided there is exactly one such
+ * subtree. Paired subtrees only match their partners. Identical subtrees that could not be paired match any other
+ * unpaired identical subtree the {@link de.fosd.jdime.matcher.Matcher} compares while descending from their parents.
+ * As the subtrees are identical, matching them in full is an optimal result for any such pair.
  *
  * @param <T>
  *         the type of the {@link Artifact Artifacts} being matched
@@ -46,16 +56,18 @@ import de.fosd.jdime.matcher.matching.Matchings;
 public class IdenticalSubtreeMatcher<T extends Artifact<T>> implements MatcherInterface<T> {
 
     private Map<T, T> matches;
+    private Map<T, T> reverseMatches;
 
     /**
      * Constructs a new {@link IdenticalSubtreeMatcher}.
      */
     public IdenticalSubtreeMatcher() {
-        this.matches = new HashMap<>();
+        this.matches = new IdentityHashMap<>();
+        this.reverseMatches = new IdentityHashMap<>();
     }
 
     /**
-     * Stores all matchings resulting from unique matching tree hashes in the left and right trees in this
+     * Pairs the identical subtrees of the left and right trees and stores the pairs in this
      * {@link IdenticalSubtreeMatcher}. After this method was called, the
      * {@link #match(MergeContext, Artifact, Artifact)} method will return {@link Matchings} between the full trees if
      * {@link #hasMatched(Artifact, Artifact)} returns {@code true}.
@@ -66,78 +78,153 @@ public class IdenticalSubtreeMatcher<T extends Artifact<T>> implements MatcherIn
      *         the root of the right tree
      */
     public void matchTrees(T leftRoot, T rightRoot) {
-        Map<String, T> leftUnique = uniqueHashes(leftRoot);
-        Map<String, T> rightUnique = uniqueHashes(rightRoot);
-        matchSubtree(leftUnique.keySet(), leftRoot, rightUnique);
+        matches = new IdentityHashMap<>();
+        reverseMatches = new IdentityHashMap<>();
+
+        Map<T, Integer> positions = new IdentityHashMap<>();
+        Map<TreeHash, List<T>> leftHashes = hashes(leftRoot, positions);
+        Map<TreeHash, List<T>> rightHashes = hashes(rightRoot, positions);
+
+        matchSubtree(leftRoot, leftHashes, rightHashes, positions);
     }
 
     /**
-     * If the tree hash of {@code left} is unique in the left tree, examines the unique hashes of the right tree and
-     * tries to find the hash of {@code left}. If found, adds matchings between all nodes in the {@code left} and
-     * matching right tree to {@link #matches}. Otherwise all other nodes in the {@code left} tree are examined in DFS
-     * order.
+     * Tries to pair {@code left} with an unpaired right subtree having the same tree hash. If found, adds pairs
+     * between all nodes in the {@code left} and the right tree to {@link #matches}. Otherwise all other nodes in the
+     * {@code left} tree are examined in DFS order.
      *
-     * @param leftUnique
-     *         the unique hashes in the left tree
      * @param left
      *         the node from the left tree to be examined
-     * @param rightUnique
-     *         the unique hashes in the right tree and their corresponding nodes
+     * @param leftHashes
+     *         the nodes of the left tree by their tree hashes
+     * @param rightHashes
+     *         the nodes of the right tree by their tree hashes
+     * @param positions
+     *         the positions of the nodes among their siblings having the same tree hash
      */
-    private void matchSubtree(Set<String> leftUnique, T left, Map<String, T> rightUnique) {
-        String treeHash = left.getTreeHash();
+    private void matchSubtree(T left, Map<TreeHash, List<T>> leftHashes, Map<TreeHash, List<T>> rightHashes,
+                              Map<T, Integer> positions) {
 
-        if (!leftUnique.contains(treeHash) || !rightUnique.containsKey(treeHash)) {
-            left.getChildren().forEach(c -> matchSubtree(leftUnique, c, rightUnique));
-            return;
+        TreeHash treeHash = left.getTreeHash();
+        List<T> candidates = rightHashes.get(treeHash);
+        T right = null;
+
+        if (candidates != null) {
+            candidates.removeIf(reverseMatches::containsKey);
+
+            if (candidates.size() == 1 && leftHashes.get(treeHash).size() == 1) {
+                right = candidates.get(0);
+            } else {
+                right = disambiguate(left, candidates, positions);
+            }
         }
 
-        T right = rightUnique.get(treeHash);
+        // parts of the right subtree may already be paired with parts of another left subtree
+        if (right == null || Artifacts.dfsStream(right).anyMatch(reverseMatches::containsKey)) {
+            left.getChildren().forEach(c -> matchSubtree(c, leftHashes, rightHashes, positions));
+            return;
+        }
 
         Iterator<T> leftIt = Artifacts.dfsIterable(left).iterator();
         Iterator<T> rightIt = Artifacts.dfsIterable(right).iterator();
 
         while (leftIt.hasNext() && rightIt.hasNext()) {
-            matches.put(leftIt.next(), rightIt.next());
+            T l = leftIt.next();
+            T r = rightIt.next();
+
+            matches.put(l, r);
+            reverseMatches.put(r, l);
+        }
+    }
+
+    /**
+     * Returns the only one of the unpaired {@code candidates} whose parent matches the parent of {@code left} and
+     * whose position among its identical siblings is the same as that of {@code left}.
+     *
+     * @param left
+     *         the node from the left tree
+     * @param candidates
+     *         the unpaired nodes from the right tree having the same tree hash as {@code left}
+     * @param positions
+     *         the positions of the nodes among their siblings having the same tree hash
+     * @return the right node to pair {@code left} with or {@code null} if there is no unambiguous one
+     */
+    private T disambiguate(T left, List<T> candidates, Map<T, Integer> positions) {
+        T leftParent = left.getParent();
+        T right = null;
+
+        for (T candidate : candidates) {
+            T rightParent = candidate.getParent();
+
+            if (leftParent == null || rightParent == null) {
+                if (leftParent != rightParent) {
+                    continue;
+                }
+            } else if (!leftParent.matches(rightParent)) {
+                continue;
+            }
+
+            if (!positions.get(left).equals(positions.get(candidate))) {
+                continue;
+            }
+
+            if (right != null) {
+                return null;
+            }
+
+            right = candidate;
         }
+
+        return right;
     }
 
     /**
-     * Returns the subtree hashes that are unique in the given tree.
+     * Returns the nodes of the given tree by their tree hashes. The position of every node among its siblings having
+     * the same tree hash is stored in {@code positions}.
      *
      * @param treeRoot
      *         the root of the tree to examine
-     * @return the unique hashes in the given tree and their corresponding nodes
+     * @param positions
+     *         the map to store the positions in
+     * @return the nodes of the given tree by their tree hashes in DFS order
      */
-    private Map<String, T> uniqueHashes(T treeRoot) {
-        Map<String, T> hashes = new HashMap<>();
-        Set<String> notUnique = new HashSet<>();
+    private Map<TreeHash, List<T>> hashes(T treeRoot, Map<T, Integer> positions) {
+        Map<TreeHash, List<T>> hashes = new HashMap<>();
+
+        positions.put(treeRoot, 0);
 
         Artifacts.dfsStream(treeRoot).forEach(artifact -> {
-            String treeHash = artifact.getTreeHash();
+            hashes.computeIfAbsent(artifact.getTreeHash(), h -> new ArrayList<>()).add(artifact);
 
-            if (hashes.put(treeHash, artifact) != null) {
-                notUnique.add(treeHash);
+            Map<TreeHash, Integer> siblings = new HashMap<>();
+
+            for (T child : artifact.getChildren()) {
+                positions.put(child, siblings.merge(child.getTreeHash(), 1, Integer::sum) - 1);
             }
         });
 
-        notUnique.forEach(hashes::remove);
         return hashes;
     }
 
     /**
-     * Returns whether this {@link IdenticalSubtreeMatcher} has matched the {@link Artifact artifacts} {@code left} and
-     * {@code right} (and therefore their whole subtrees.
+     * Returns whether this {@link IdenticalSubtreeMatcher} matches the {@link Artifact artifacts} {@code left} and
+     * {@code right} (and therefore their whole subtrees).
      *
      * @param left
      *         the left {@link Artifact}
      * @param right
      *         the right {@link Artifact}
-     * @return true, iff a previous call to {@link #matchTrees(Artifact, Artifact)} resulted in matching {@code left}
-     * and {@code right}
+     * @return true, iff a previous call to {@link #matchTrees(Artifact, Artifact)} paired {@code left} and
+     * {@code right} or neither of them was paired and the trees rooted in them have the same tree hash
      */
     public boolean hasMatched(T left, T right) {
-        return matches.get(left) == right;
+        T match = matches.get(left);
+
+        if (match != null) {
+            return match == right;
+        }
+
+        return !reverseMatches.containsKey(right) && left.getTreeHash().equals(right.getTreeHash());
     }
 
     @Override
@@ -145,7 +232,7 @@ public class IdenticalSubtreeMatcher<T extends Artifact<T>> implements MatcherIn
         Matchings<T> matchings = new Matchings<>();
 
         if (hasMatched(left, right)) {
-            constructMatchings(matchings, left);
+            constructMatchings(matchings, left, right);
             return matchings;
         }
 
@@ -153,23 +240,28 @@ public class IdenticalSubtreeMatcher<T extends Artifact<T>> implements MatcherIn
     }
 
     /**
-     * Adds {@link Matching matchings} between the subtrees rooted in {@code left} and its match in {@link #matches} to
-     * the given {@code matchings}.
+     * Adds {@link Matching matchings} between the identical subtrees rooted in {@code left} and {@code right} to the
+     * given {@code matchings}.
      *
      * @param matchings
      *         the {@link Matchings} to add to
      * @param left
      *         the root of the left tree that was matched
+     * @param right
+     *         the root of the right tree that was matched
      * @return the score of the {@link Matching} added for {@code left}
      */
-    private int constructMatchings(Matchings<T> matchings, T left) {
+    private int constructMatchings(Matchings<T> matchings, T left, T right) {
         int score = 1;
 
-        if (left.hasChildren()) {
-            score += left.getChildren().stream().mapToInt(c -> constructMatchings(matchings, c)).sum();
+        List<T> leftChildren = left.getChildren();
+        List<T> rightChildren = right.getChildren();
+
+        for (int i = 0; i < leftChildren.size(); i++) {
+            score += constructMatchings(matchings, leftChildren.get(i), rightChildren.get(i));
         }
 
-        Matching<T> matching = new Matching<>(left, matches.get(left), score);
+        Matching<T> matching = new Matching<>(left, right, score);
 
         matching.setAlgorithm(IdenticalSubtreeMatcher.class.getSimpleName());
         matchings.add(matching);
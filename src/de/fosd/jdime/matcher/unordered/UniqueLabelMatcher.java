@@ -29,6 +29,7 @@ import java.util.Iterator;
 import java.util.List;
 
 import de.fosd.jdime.artifact.Artifact;
+import de.fosd.jdime.artifact.Symbols;
 import de.fosd.jdime.config.merge.MergeContext;
 import de.fosd.jdime.matcher.MatcherInterface;
 import de.fosd.jdime.matcher.matching.Matching;
@@ -45,9 +46,6 @@ public class UniqueLabelMatcher<T extends Artifact<T>> extends UnorderedMatcher<
 
     private static final String ID = UniqueLabelMatcher.class.getSimpleName();
 
-    // We expect that the Artifacts have a unique label, if they do not an exception is to be expected.
-    private final Comparator<T> comp = Comparator.comparing(o -> o.getUniqueLabel().get().get());
-
     /**
      * Constructs a new <code>UniqueLabelMatcher</code> using the given <code>matcher</code> for recursive calls.
      *
@@ -74,6 +72,11 @@ public class UniqueLabelMatcher<T extends Artifact<T>> extends UnorderedMatcher<
             return m;
         }
 
+        // We expect that the Artifacts have a unique label. Their order is that of the symbols of the labels in one
+        // table, which is consistent between the two lists of children but not lexicographic.
+        Symbols table = Symbols.current();
+        Comparator<T> comp = Comparator.comparingInt(artifact -> artifact.getUniqueLabelSymbol(table));
+
         List<Matchings<T>> childrenMatchings = new ArrayList<>();
         List<T> leftChildren = new ArrayList<>(left.getChildren());
         List<T> rightChildren = new ArrayList<>(right.getChildren());
@@ -23,10 +23,16 @@
  */
 package de.fosd.jdime.matcher.unordered.assignmentProblem;
 
-import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 import de.fosd.jdime.artifact.Artifact;
 import de.fosd.jdime.config.merge.MergeContext;
+import de.fosd.jdime.matcher.ChildPairMatcher;
 import de.fosd.jdime.matcher.MatcherInterface;
 import de.fosd.jdime.matcher.matching.Matching;
 import de.fosd.jdime.matcher.matching.Matchings;
@@ -37,6 +43,18 @@ import de.fosd.jdime.util.Tuple;
  * <code>UnorderedMatcher</code> that solves the assignment problem, which
  * consists of finding a maximum weight matching in a weighted bipartite graph.
  *
+ * The problem is not solved for the whole matrix of children but separately
+ * for every component returned by {@link #partition(int[][])}. If
+ * {@link MergeContext#isMatcherParallel()} is enabled and the matrix has at
+ * least {@link MergeContext#getMatcherParallelMinSize()} cells, the components
+ * are solved in parallel. Subclasses implement {@link #solve(int[][])} for a
+ * single component.
+ * <p>
+ * If {@link MergeContext#isMatcherLean()} is enabled, only the
+ * <code>Matchings</code> of child pairs with a positive score are kept while
+ * the assignment problem is solved. Pairs with a score of 0 are never part of
+ * the result.
+ *
  * @param <T>
  *         type of artifact
  * @author Olaf Lessenich
@@ -77,43 +95,191 @@ public abstract class AssignmentProblemMatcher<T extends Artifact<T>> extends Un
             return matchings;
         }
 
-        @SuppressWarnings("unchecked")
-        Tuple<Integer, Matchings<T>>[][] matchings = (Tuple<Integer, Matchings<T>>[][]) Array.newInstance(Tuple.class, m, n);
+        Matchings<T>[][] childMatchings = ChildPairMatcher.matchChildren(context, matcher, left, right,
+                                                                          context.isMatcherLean());
+        int[][] scores = new int[m][n];
 
         for (int i = 0; i < m; i++) {
+            T childT1 = left.getChild(i);
+
             for (int j = 0; j < n; j++) {
-                matchings[i][j] = Tuple.of(0, new Matchings<>());
+                T childT2 = right.getChild(j);
+
+                if (childMatchings[i][j] != null) {
+                    scores[i][j] = childMatchings[i][j].get(childT1, childT2).get().getScore();
+                }
             }
         }
 
-        T childT1;
-        T childT2;
+        return solveAssignmentProblem(context, left, right, scores, childMatchings, rootMatching);
+    }
+
+    /**
+     * Partitions the bipartite graph described by <code>childrenScores</code> into its connected components when
+     * only considering edges with a positive score. As edges with a score of 0 do not contribute to the weight of a
+     * matching, a maximum weight matching of the whole graph can be assembled from maximum weight matchings of the
+     * components. Children that have no positive edge at all are not part of any component. Children of different
+     * categories (e.g. a field and a method declaration) never match and therefore usually end up in different
+     * components.
+     *
+     * @param childrenScores
+     *         matrix of scores
+     * @return the components as tuples of the row (left children) and column (right children) indices they contain,
+     *          the indices are sorted in ascending order
+     */
+    private static List<Tuple<int[], int[]>> partition(int[][] childrenScores) {
+        int m = childrenScores.length;
+        int n = childrenScores[0].length;
+        int[] component = new int[m + n];
+
+        for (int i = 0; i < component.length; i++) {
+            component[i] = i;
+        }
 
         for (int i = 0; i < m; i++) {
-            childT1 = left.getChild(i);
             for (int j = 0; j < n; j++) {
-                childT2 = right.getChild(j);
-                Matchings<T> w = matcher.match(context, childT1, childT2);
-                Matching<T> matching = w.get(childT1, childT2).get();
-                matchings[i][j] = Tuple.of(matching.getScore(), w);
+                if (childrenScores[i][j] > 0) {
+                    int a = find(component, i);
+                    int b = find(component, m + j);
+
+                    if (a != b) {
+                        component[Math.max(a, b)] = Math.min(a, b);
+                    }
+                }
+            }
+        }
+
+        Map<Integer, List<Integer>> rows = new LinkedHashMap<>();
+        Map<Integer, List<Integer>> cols = new LinkedHashMap<>();
+
+        for (int i = 0; i < m + n; i++) {
+            int c = find(component, i);
+
+            if (i < m) {
+                rows.computeIfAbsent(c, k -> new ArrayList<>()).add(i);
+            } else {
+                cols.computeIfAbsent(c, k -> new ArrayList<>()).add(i - m);
             }
         }
 
-        return solveAssignmentProblem(left, right, matchings, rootMatching);
+        List<Tuple<int[], int[]>> partitions = new ArrayList<>();
+
+        rows.forEach((c, r) -> {
+            List<Integer> cs = cols.get(c);
+
+            if (cs != null) {
+                partitions.add(Tuple.of(r.stream().mapToInt(Integer::intValue).toArray(),
+                                        cs.stream().mapToInt(Integer::intValue).toArray()));
+            }
+        });
+
+        return partitions;
+    }
+
+    /**
+     * Returns the representative of the component of <code>i</code> in the union-find array <code>component</code>.
+     *
+     * @param component
+     *         the union-find array
+     * @param i
+     *         the index to find the representative for
+     * @return the representative
+     */
+    private static int find(int[] component, int i) {
+        while (component[i] != i) {
+            component[i] = component[component[i]];
+            i = component[i];
+        }
+
+        return i;
     }
 
     /**
      * Solves the assignment problem, which consists of finding a maximum
      * weight matching in a weighted bipartite graph.
      *
+     * @param context
+     *            the <code>MergeContext</code>
      * @param left
      *            left artifact
      * @param right
      *            right artifact
+     * @param childrenScores
+     *            matrix of scores
      * @param childrenMatching
-     *            matrix of matchings
+     *            matrix of matchings, the entries of pairs with a score of 0
+     *            may be <code>null</code>
+     * @param rootMatching
+     *            the score of the matching of the root nodes
      * @return matching of root nodes
      */
-    protected abstract Matchings<T> solveAssignmentProblem(T left, T right, Tuple<Integer, Matchings<T>>[][] childrenMatching, int rootMatching);
+    private Matchings<T> solveAssignmentProblem(MergeContext context, T left, T right, int[][] childrenScores,
+                                                Matchings<T>[][] childrenMatching, int rootMatching) {
+        int m = childrenScores.length;
+        int n = childrenScores[0].length;
+        int[] bestMatches = new int[m];
+
+        Arrays.fill(bestMatches, -1);
+
+        List<Tuple<int[], int[]>> partitions = partition(childrenScores);
+        Stream<Tuple<int[], int[]>> stream = partitions.stream();
+
+        if (partitions.size() > 1 && context.isMatcherParallel() && m * n >= context.getMatcherParallelMinSize()) {
+            stream = stream.parallel();
+        }
+
+        stream.forEach(p -> {
+            int[][] scores = new int[p.x.length][p.y.length];
+
+            for (int i = 0; i < p.x.length; i++) {
+                for (int j = 0; j < p.y.length; j++) {
+                    scores[i][j] = childrenScores[p.x[i]][p.y[j]];
+                }
+            }
+
+            int[] assignment = solve(scores);
+
+            for (int i = 0; i < assignment.length; i++) {
+                if (assignment[i] >= 0) {
+                    bestMatches[p.x[i]] = p.y[assignment[i]];
+                }
+            }
+        });
+
+        /* Build a list containing the relevant matches. */
+        List<Matchings<T>> children = new ArrayList<>();
+        int score = 0;
+
+        for (int i = 0; i < bestMatches.length; i++) {
+            int j = bestMatches[i];
+
+            if (j < 0)
+                continue;
+
+            if (childrenScores[i][j] > 0) {
+                children.add(childrenMatching[i][j]);
+                score += childrenScores[i][j];
+            }
+        }
+
+        Matching<T> matching = new Matching<>(left, right, score + rootMatching);
+        matching.setAlgorithm(getClass().getSimpleName());
+
+        Matchings<T> result = new Matchings<>();
+        result.add(matching);
+        result.addAllMatchings(children);
+
+        return result;
+    }
+
+    /**
+     * Solves the assignment problem for the given (possibly rectangular) matrix of scores, that is finds an
+     * assignment of rows to columns maximizing the sum of the scores of the assigned cells.
+     *
+     * @param scores
+     *            the non-negative scores
+     * @return for every row the column it is assigned to or -1 if it is not assigned
+     */
+    protected abstract int[] solve(int[][] scores);
 
 }
@@ -23,14 +23,8 @@
  */
 package de.fosd.jdime.matcher.unordered.assignmentProblem;
 
-import java.util.ArrayList;
-import java.util.List;
-
 import de.fosd.jdime.artifact.Artifact;
 import de.fosd.jdime.matcher.MatcherInterface;
-import de.fosd.jdime.matcher.matching.Matching;
-import de.fosd.jdime.matcher.matching.Matchings;
-import de.fosd.jdime.util.Tuple;
 
 /**
  * This unordered matcher uses the hungarian algorithm to solve the assignment
@@ -47,8 +41,6 @@ import de.fosd.jdime.util.Tuple;
  */
 public class HungarianMatcher<T extends Artifact<T>> extends AssignmentProblemMatcher<T> {
 
-    private static final String ID = HungarianMatcher.class.getSimpleName();
-
     /**
      * Constructs a new <code>HungarianMatcher</code> using the given <code>matcher</code> for recursive calls.
      *
@@ -63,9 +55,9 @@ public class HungarianMatcher<T extends Artifact<T>> extends AssignmentProblemMa
      * {@inheritDoc}
      */
     @Override
-    protected Matchings<T> solveAssignmentProblem(T left, T right, Tuple<Integer, Matchings<T>>[][] childrenMatching, int rootMatching) {
-        int m = childrenMatching.length;
-        int n = childrenMatching[0].length;
+    protected int[] solve(int[][] scores) {
+        int m = scores.length;
+        int n = scores[0].length;
         int[][] matrix = new int[m][n];
 
         /* We want to solve the assignment problem for maximum values,
@@ -75,7 +67,7 @@ public class HungarianMatcher<T extends Artifact<T>> extends AssignmentProblemMa
 
         for (int i = 0; i < m; i++) {
             for (int j = 0; j < n; j++) {
-                matrix[i][j] = childrenMatching[i][j].x;
+                matrix[i][j] = scores[i][j];
                 if (matrix[i][j] > max)
                     max = matrix[i][j];
             }
@@ -89,33 +81,7 @@ public class HungarianMatcher<T extends Artifact<T>> extends AssignmentProblemMa
 
         /* Solve via hungarian algorithm. */
         HungarianAlgorithm alg = new HungarianAlgorithm(matrix);
-        int[] bestMatches = alg.execute();
-
-        /* Build a list containing the relevant matches. */
-        List<Matchings<T>> children = new ArrayList<>();
-        int score = 0;
-
-        for (int i = 0; i < bestMatches.length; i++) {
-            int j = bestMatches[i];
-
-            if (j < 0)
-                continue;
-
-            Tuple<Integer, Matchings<T>> curMatching = childrenMatching[i][j];
-
-            if (curMatching.x > 0) {
-                children.add(curMatching.y);
-                score += curMatching.x;
-            }
-        }
-
-        Matching<T> matching = new Matching<>(left, right, score + rootMatching);
-        matching.setAlgorithm(ID);
-
-        Matchings<T> result = new Matchings<>();
-        result.add(matching);
-        result.addAllMatchings(children);
 
-        return result;
+        return alg.execute();
     }
 }
@@ -0,0 +1,166 @@
+/**
+ * Copyright (C) 2013-2014 Olaf Lessenich
+ * Copyright (C) 2014-2017 University of Passau, Germany
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ * Contributors:
+ *     Olaf Lessenich <lessenic@fim.uni-passau.de>
+ *     Georg Seibt <seibt@fim.uni-passau.de>
+ */
+package de.fosd.jdime.matcher.unordered.assignmentProblem;
+
+import java.util.Arrays;
+
+/**
+ * Solves the rectangular assignment problem for maximum weight using shortest augmenting paths as in the
+ * Jonker-Volgenant algorithm. Rows are added one at a time and assigned along the shortest augmenting path found with
+ * Dijkstra's algorithm using dual potentials. This takes O(n^2 * m) time for n rows and m &gt;= n columns. In contrast
+ * to the {@link HungarianAlgorithm}, the matrix is neither padded to a square nor transformed into costs by
+ * subtracting the scores from their maximum.
+ */
+public class ShortestAugmentingPathAlgorithm {
+
+    private final int[][] scores;
+
+    /**
+     * Constructs a new <code>ShortestAugmentingPathAlgorithm</code> for the given matrix of scores.
+     *
+     * @param scores
+     *         the matrix of scores, must be rectangular and contain at least one row and one column
+     */
+    public ShortestAugmentingPathAlgorithm(int[][] scores) {
+        this.scores = scores;
+    }
+
+    /**
+     * Computes an assignment of rows to columns maximizing the sum of the scores of the assigned cells.
+     *
+     * @return for every row the column it is assigned to or -1 if it is not assigned
+     */
+    public int[] execute() {
+        int rows = scores.length;
+        int cols = scores[0].length;
+
+        if (rows <= cols) {
+            return solve(rows, cols, false);
+        }
+
+        int[] colToRow = solve(cols, rows, true);
+        int[] rowToCol = new int[rows];
+
+        Arrays.fill(rowToCol, -1);
+
+        for (int j = 0; j < colToRow.length; j++) {
+            rowToCol[colToRow[j]] = j;
+        }
+
+        return rowToCol;
+    }
+
+    /**
+     * Solves the problem for <code>n</code> rows and <code>m &gt;= n</code> columns.
+     *
+     * @param n
+     *         the number of rows
+     * @param m
+     *         the number of columns
+     * @param transposed
+     *         whether the rows of the problem are the columns of {@link #scores}
+     * @return for every row the column it is assigned to
+     */
+    private int[] solve(int n, int m, boolean transposed) {
+        long[] u = new long[n + 1];
+        long[] v = new long[m + 1];
+        int[] rowOfCol = new int[m + 1];
+        int[] way = new int[m + 1];
+        long[] minV = new long[m + 1];
+        boolean[] used = new boolean[m + 1];
+
+        for (int i = 1; i <= n; i++) {
+            rowOfCol[0] = i;
+            int j0 = 0;
+
+            Arrays.fill(minV, Long.MAX_VALUE);
+            Arrays.fill(used, false);
+
+            do {
+                used[j0] = true;
+                int i0 = rowOfCol[j0];
+                long delta = Long.MAX_VALUE;
+                int j1 = 0;
+
+                for (int j = 1; j <= m; j++) {
+                    if (!used[j]) {
+                        long cur = cost(i0 - 1, j - 1, transposed) - u[i0] - v[j];
+
+                        if (cur < minV[j]) {
+                            minV[j] = cur;
+                            way[j] = j0;
+                        }
+
+                        if (minV[j] < delta) {
+                            delta = minV[j];
+                            j1 = j;
+                        }
+                    }
+                }
+
+                for (int j = 0; j <= m; j++) {
+                    if (used[j]) {
+                        u[rowOfCol[j]] += delta;
+                        v[j] -= delta;
+                    } else {
+                        minV[j] -= delta;
+                    }
+                }
+
+                j0 = j1;
+            } while (rowOfCol[j0] != 0);
+
+            do {
+                int j1 = way[j0];
+                rowOfCol[j0] = rowOfCol[j1];
+                j0 = j1;
+            } while (j0 != 0);
+        }
+
+        int[] assignment = new int[n];
+
+        for (int j = 1; j <= m; j++) {
+            if (rowOfCol[j] != 0) {
+                assignment[rowOfCol[j] - 1] = j - 1;
+            }
+        }
+
+        return assignment;
+    }
+
+    /**
+     * Returns the cost of assigning row <code>i</code> to column <code>j</code>, which is the negated score.
+     *
+     * @param i
+     *         the row
+     * @param j
+     *         the column
+     * @param transposed
+     *         whether to swap <code>i</code> and <code>j</code> when accessing {@link #scores}
+     * @return the cost
+     */
+    private long cost(int i, int j, boolean transposed) {
+        return -(long) (transposed ? scores[j][i] : scores[i][j]);
+    }
+}
@@ -0,0 +1,56 @@
+/**
+ * Copyright (C) 2013-2014 Olaf Lessenich
+ * Copyright (C) 2014-2017 University of Passau, Germany
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ * Contributors:
+ *     Olaf Lessenich <lessenic@fim.uni-passau.de>
+ *     Georg Seibt <seibt@fim.uni-passau.de>
+ */
+package de.fosd.jdime.matcher.unordered.assignmentProblem;
+
+import de.fosd.jdime.artifact.Artifact;
+import de.fosd.jdime.matcher.MatcherInterface;
+
+/**
+ * This unordered matcher uses the {@link ShortestAugmentingPathAlgorithm} to solve the assignment problem. It works
+ * directly on the rectangular matrix of scores.
+ *
+ * @param <T>
+ *         type of artifact
+ */
+public class ShortestAugmentingPathMatcher<T extends Artifact<T>> extends AssignmentProblemMatcher<T> {
+
+    /**
+     * Constructs a new <code>ShortestAugmentingPathMatcher</code> using the given <code>matcher</code> for recursive
+     * calls.
+     *
+     * @param matcher
+     *         the parent <code>MatcherInterface</code>
+     */
+    public ShortestAugmentingPathMatcher(MatcherInterface<T> matcher) {
+        super(matcher);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected int[] solve(int[][] scores) {
+        return new ShortestAugmentingPathAlgorithm(scores).execute();
+    }
+}
@@ -74,7 +74,7 @@ public class Merge<T extends Artifact<T>> implements MergeInterface<T> {
         Revision b = base.getRevision();
         Revision r = right.getRevision();
 
-        Matcher<T> matcher = null;
+        Matcher<T> matcher;
         Matching<T> m;
 
         // Finally, `left.hasMatching(right) && right.hasMatching(left)` must hold after matching.
@@ -92,7 +92,7 @@ public class Merge<T extends Artifact<T>> implements MergeInterface<T> {
                 }
 
                 // diff base right
-                matcher = new Matcher<>(matcher, base, right);
+                matcher = new Matcher<>(base, right);
                 m = matcher.match(context, Color.GREEN).get(base, right).get();
 
                 if (m.getScore() == 0) {
@@ -101,7 +101,7 @@ public class Merge<T extends Artifact<T>> implements MergeInterface<T> {
             }
 
             // diff left right
-            matcher = new Matcher<>(matcher, left, right);
+            matcher = base.isEmpty() ? new Matcher<>(left, right) : new Matcher<>(left, right, base.getRevision());
             m = matcher.match(context, Color.BLUE).get(left, right).get();
 
             if (context.isDiffOnly() && left.isRoot() && left instanceof ASTNodeArtifact) {
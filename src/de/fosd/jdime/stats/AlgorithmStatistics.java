@@ -0,0 +1,174 @@
+/**
+ * Copyright (C) 2013-2014 Olaf Lessenich
+ * Copyright (C) 2014-2017 University of Passau, Germany
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ * Contributors:
+ *     Olaf Lessenich <lessenic@fim.uni-passau.de>
+ *     Georg Seibt <seibt@fim.uni-passau.de>
+ */
+package de.fosd.jdime.stats;
+
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A statistics container for the work done by one matching algorithm of the <code>Matcher</code>.
+ */
+public class AlgorithmStatistics {
+
+    /**
+     * The name of the algorithm.
+     */
+    private String label;
+
+    /**
+     * How often the algorithm was invoked.
+     */
+    private int invocations;
+
+    /**
+     * The sum of the sizes (number of pairs of artifacts to consider) of the problems the algorithm was invoked for.
+     */
+    private long cells;
+
+    /**
+     * The size of the largest problem the algorithm was invoked for.
+     */
+    private long maxCells;
+
+    /**
+     * The time spent in the algorithm in nanoseconds, excluding the time spent in nested invocations of (other)
+     * algorithms on the same thread.
+     */
+    private long timeNS;
+
+    /**
+     * Constructs a new <code>AlgorithmStatistics</code> object for the algorithm with the given name.
+     *
+     * @param label
+     *         the name of the algorithm
+     */
+    public AlgorithmStatistics(String label) {
+        this.label = label;
+        this.invocations = 0;
+        this.cells = 0;
+        this.maxCells = 0;
+        this.timeNS = 0;
+    }
+
+    /**
+     * Copy constructor.
+     *
+     * @param toCopy
+     *         the <code>AlgorithmStatistics</code> to copy
+     */
+    public AlgorithmStatistics(AlgorithmStatistics toCopy) {
+        this.label = toCopy.label;
+        this.invocations = toCopy.invocations;
+        this.cells = toCopy.cells;
+        this.maxCells = toCopy.maxCells;
+        this.timeNS = toCopy.timeNS;
+    }
+
+    /**
+     * Returns the name of the algorithm.
+     *
+     * @return the name
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * Returns how often the algorithm was invoked.
+     *
+     * @return the number of invocations
+     */
+    public int getInvocations() {
+        return invocations;
+    }
+
+    /**
+     * Returns the sum of the sizes of the problems the algorithm was invoked for.
+     *
+     * @return the number of cells
+     */
+    public long getCells() {
+        return cells;
+    }
+
+    /**
+     * Returns the size of the largest problem the algorithm was invoked for.
+     *
+     * @return the maximum number of cells
+     */
+    public long getMaxCells() {
+        return maxCells;
+    }
+
+    /**
+     * Returns the time spent in the algorithm in nanoseconds.
+     *
+     * @return the time in nanoseconds
+     */
+    public long getTimeNS() {
+        return timeNS;
+    }
+
+    /**
+     * Records an invocation of the algorithm. This method may be called concurrently.
+     *
+     * @param cells
+     *         the size of the problem
+     * @param timeNS
+     *         the time spent in the algorithm in nanoseconds
+     */
+    public synchronized void record(long cells, long timeNS) {
+        this.invocations++;
+        this.cells += cells;
+        this.maxCells = Math.max(maxCells, cells);
+        this.timeNS += timeNS;
+    }
+
+    /**
+     * Adds the values in the given <code>AlgorithmStatistics</code> to <code>this</code>.
+     *
+     * @param other
+     *         the <code>AlgorithmStatistics</code> to add
+     */
+    public void add(AlgorithmStatistics other) {
+        invocations += other.invocations;
+        cells += other.cells;
+        maxCells = Math.max(maxCells, other.maxCells);
+        timeNS += other.timeNS;
+    }
+
+    /**
+     * Writes a human readable representation of this <code>AlgorithmStatistics</code> object to the given
+     * <code>PrintStream</code>. Each line will be prepended by the given <code>indent</code>.
+     *
+     * @param ps
+     *         the <code>PrintStream</code> to write to
+     * @param indent
+     *         the indentation to use
+     */
+    public void print(PrintStream ps, String indent) {
+        long timeMS = TimeUnit.NANOSECONDS.toMillis(timeNS);
+        ps.printf("%s%s: %d invocations, %d cells (max %d), %dms%n", indent, label, invocations, cells, maxCells, timeMS);
+    }
+}
@@ -0,0 +1,318 @@
+/**
+ * Copyright (C) 2013-2014 Olaf Lessenich
+ * Copyright (C) 2014-2017 University of Passau, Germany
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ * Contributors:
+ *     Olaf Lessenich <lessenic@fim.uni-passau.de>
+ *     Georg Seibt <seibt@fim.uni-passau.de>
+ */
+package de.fosd.jdime.stats;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A statistics container for values describing the work done by the <code>Matcher</code> while matching the trees
+ * involved in a merge.
+ */
+public class MatcherStatistics {
+
+    /**
+     * How often the <code>Matcher</code> could reuse the <code>Matchings</code> it memoized for a pair of artifacts.
+     */
+    private int memoHits;
+
+    /**
+     * How often the <code>Matcher</code> had to compute the <code>Matchings</code> for a pair of artifacts.
+     */
+    private int memoMisses;
+
+    /**
+     * How often the <code>Matcher</code> could re-instantiate the <code>Matchings</code> computed for an isomorphic
+     * pair of trees.
+     */
+    private int isomorphismHits;
+
+    /**
+     * How many pairs of children the <code>SimpleTreeMatcher</code> did not match because their upper bound score
+     * could not improve the matching.
+     */
+    private int prunedPairs;
+
+    /**
+     * How often a pair of artifacts was found to be matched by the <code>IdenticalSubtreeMatcher</code>.
+     */
+    private int identicalSubtreeHits;
+
+    /**
+     * How often a pair of artifacts was not matched by the <code>IdenticalSubtreeMatcher</code>.
+     */
+    private int identicalSubtreeMisses;
+
+    /**
+     * The pairs of nodes (described by their IDs and types) that were matched by a cheap fallback matcher because the
+     * work or time budget was exhausted.
+     */
+    private List<String> degradedNodes;
+
+    /**
+     * The statistics for the individual matching algorithms by their names.
+     */
+    private Map<String, AlgorithmStatistics> algorithms;
+
+    /**
+     * Constructs a new <code>MatcherStatistics</code> object.
+     */
+    public MatcherStatistics() {
+        this.memoHits = 0;
+        this.memoMisses = 0;
+        this.isomorphismHits = 0;
+        this.prunedPairs = 0;
+        this.identicalSubtreeHits = 0;
+        this.identicalSubtreeMisses = 0;
+        this.degradedNodes = new ArrayList<>();
+        this.algorithms = new TreeMap<>();
+    }
+
+    /**
+     * Copy constructor.
+     *
+     * @param toCopy
+     *         the <code>MatcherStatistics</code> to copy
+     */
+    public MatcherStatistics(MatcherStatistics toCopy) {
+        this.memoHits = toCopy.memoHits;
+        this.memoMisses = toCopy.memoMisses;
+        this.isomorphismHits = toCopy.isomorphismHits;
+        this.prunedPairs = toCopy.prunedPairs;
+        this.identicalSubtreeHits = toCopy.identicalSubtreeHits;
+        this.identicalSubtreeMisses = toCopy.identicalSubtreeMisses;
+        this.degradedNodes = new ArrayList<>(toCopy.degradedNodes);
+        this.algorithms = new TreeMap<>();
+
+        for (Map.Entry<String, AlgorithmStatistics> entry : toCopy.algorithms.entrySet()) {
+            this.algorithms.put(entry.getKey(), new AlgorithmStatistics(entry.getValue()));
+        }
+    }
+
+    /**
+     * Returns the number of memo hits.
+     *
+     * @return the number of memo hits
+     */
+    public int getMemoHits() {
+        return memoHits;
+    }
+
+    /**
+     * Increments the number of memo hits by the given value.
+     *
+     * @param by
+     *         the value to increment by
+     */
+    public void incrementMemoHits(int by) {
+        this.memoHits += by;
+    }
+
+    /**
+     * Returns the number of memo misses.
+     *
+     * @return the number of memo misses
+     */
+    public int getMemoMisses() {
+        return memoMisses;
+    }
+
+    /**
+     * Increments the number of memo misses by the given value.
+     *
+     * @param by
+     *         the value to increment by
+     */
+    public void incrementMemoMisses(int by) {
+        this.memoMisses += by;
+    }
+
+    /**
+     * Returns the number of pairs of trees whose <code>Matchings</code> were re-instantiated from an isomorphic pair.
+     *
+     * @return the number of isomorphism hits
+     */
+    public int getIsomorphismHits() {
+        return isomorphismHits;
+    }
+
+    /**
+     * Increments the number of isomorphism hits by the given value.
+     *
+     * @param by
+     *         the value to increment by
+     */
+    public void incrementIsomorphismHits(int by) {
+        this.isomorphismHits += by;
+    }
+
+    /**
+     * Returns the number of pairs of children that were skipped by pruning.
+     *
+     * @return the number of pruned pairs
+     */
+    public int getPrunedPairs() {
+        return prunedPairs;
+    }
+
+    /**
+     * Increments the number of pruned pairs by the given value.
+     *
+     * @param by
+     *         the value to increment by
+     */
+    public void incrementPrunedPairs(int by) {
+        this.prunedPairs += by;
+    }
+
+    /**
+     * Returns the number of pairs of artifacts that were matched by the <code>IdenticalSubtreeMatcher</code>.
+     *
+     * @return the number of identical subtree hits
+     */
+    public int getIdenticalSubtreeHits() {
+        return identicalSubtreeHits;
+    }
+
+    /**
+     * Increments the number of identical subtree hits by the given value.
+     *
+     * @param by
+     *         the value to increment by
+     */
+    public void incrementIdenticalSubtreeHits(int by) {
+        this.identicalSubtreeHits += by;
+    }
+
+    /**
+     * Returns the number of pairs of artifacts that were not matched by the <code>IdenticalSubtreeMatcher</code>.
+     *
+     * @return the number of identical subtree misses
+     */
+    public int getIdenticalSubtreeMisses() {
+        return identicalSubtreeMisses;
+    }
+
+    /**
+     * Increments the number of identical subtree misses by the given value.
+     *
+     * @param by
+     *         the value to increment by
+     */
+    public void incrementIdenticalSubtreeMisses(int by) {
+        this.identicalSubtreeMisses += by;
+    }
+
+    /**
+     * Returns the pairs of nodes that were matched by a cheap fallback matcher because the work or time budget was
+     * exhausted. Every pair is described by the IDs and the type of its nodes.
+     *
+     * @return the degraded pairs of nodes
+     */
+    public List<String> getDegradedNodes() {
+        return degradedNodes;
+    }
+
+    /**
+     * Adds the given descriptions of degraded pairs of nodes.
+     *
+     * @param nodes
+     *         the descriptions to add
+     */
+    public void addDegradedNodes(Collection<String> nodes) {
+        this.degradedNodes.addAll(nodes);
+    }
+
+    /**
+     * Returns the statistics for the matching algorithms by their names.
+     *
+     * @return the statistics for the matching algorithms
+     */
+    public Map<String, AlgorithmStatistics> getAlgorithmStatistics() {
+        return algorithms;
+    }
+
+    /**
+     * Returns the statistics for the matching algorithm with the given name. If necessary, an empty
+     * <code>AlgorithmStatistics</code> object will be created and added to this <code>MatcherStatistics</code>.
+     *
+     * @param label
+     *         the name of the algorithm
+     * @return the <code>AlgorithmStatistics</code> for the algorithm
+     */
+    public AlgorithmStatistics getAlgorithmStatistics(String label) {
+        return algorithms.computeIfAbsent(label, AlgorithmStatistics::new);
+    }
+
+    /**
+     * Adds the values in the given <code>MatcherStatistics</code> to <code>this</code>.
+     *
+     * @param other
+     *         the <code>MatcherStatistics</code> to add
+     */
+    public void add(MatcherStatistics other) {
+        memoHits += other.memoHits;
+        memoMisses += other.memoMisses;
+        isomorphismHits += other.isomorphismHits;
+        prunedPairs += other.prunedPairs;
+        identicalSubtreeHits += other.identicalSubtreeHits;
+        identicalSubtreeMisses += other.identicalSubtreeMisses;
+        degradedNodes.addAll(other.degradedNodes);
+
+        for (Map.Entry<String, AlgorithmStatistics> entry : other.algorithms.entrySet()) {
+            getAlgorithmStatistics(entry.getKey()).add(entry.getValue());
+        }
+    }
+
+    /**
+     * Writes a human readable representation of this <code>MatcherStatistics</code> object to the given
+     * <code>PrintStream</code>. Each line will be prepended by the given <code>indent</code>.
+     *
+     * @param ps
+     *         the <code>PrintStream</code> to write to
+     * @param indent
+     *         the indentation to use
+     */
+    public void print(PrintStream ps, String indent) {
+        ps.print(indent); ps.print("Memo Hits:                "); ps.println(memoHits);
+        ps.print(indent); ps.print("Memo Misses:              "); ps.println(memoMisses);
+        ps.print(indent); ps.print("Isomorphism Hits:         "); ps.println(isomorphismHits);
+        ps.print(indent); ps.print("Pruned Pairs:             "); ps.println(prunedPairs);
+        ps.print(indent); ps.print("Identical Subtree Hits:   "); ps.println(identicalSubtreeHits);
+        ps.print(indent); ps.print("Identical Subtree Misses: "); ps.println(identicalSubtreeMisses);
+        ps.print(indent); ps.print("Degraded Nodes:           "); ps.println(degradedNodes.size());
+
+        for (String node : degradedNodes) {
+            ps.print(indent); ps.print("    "); ps.println(node);
+        }
+
+        for (AlgorithmStatistics stats : algorithms.values()) {
+            stats.print(ps, indent);
+        }
+    }
+}
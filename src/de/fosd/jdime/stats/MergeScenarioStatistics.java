@@ -50,6 +50,7 @@ public class MergeScenarioStatistics {
     private Map<Revision, Map<KeyEnums.Level, ElementStatistics>> levelStatistics;
     private Map<Revision, Map<KeyEnums.Type, ElementStatistics>> typeStatistics;
     private Map<Revision, MergeStatistics> mergeStatistics;
+    private MatcherStatistics matcherStatistics;
 
     private ElementStatistics lineStatistics;
     private ElementStatistics fileStatistics;
@@ -71,6 +72,7 @@ public class MergeScenarioStatistics {
         this.levelStatistics = new HashMap<>();
         this.typeStatistics = new HashMap<>();
         this.mergeStatistics = new HashMap<>();
+        this.matcherStatistics = new MatcherStatistics();
         this.lineStatistics = new ElementStatistics();
         this.fileStatistics = new ElementStatistics();
         this.directoryStatistics = new ElementStatistics();
@@ -124,6 +126,8 @@ public class MergeScenarioStatistics {
             this.mergeStatistics.put(entry.getKey(), new MergeStatistics(entry.getValue()));
         }
 
+        this.matcherStatistics = new MatcherStatistics(toCopy.matcherStatistics);
+
         this.lineStatistics = new ElementStatistics(toCopy.lineStatistics);
         this.fileStatistics = new ElementStatistics(toCopy.fileStatistics);
         this.directoryStatistics = new ElementStatistics(toCopy.directoryStatistics);
@@ -295,6 +299,15 @@ public class MergeScenarioStatistics {
         return mergeStatistics.computeIfAbsent(rev, r -> new MergeStatistics());
     }
 
+    /**
+     * Returns the <code>MatcherStatistics</code> collected while matching the trees of the <code>MergeScenario</code>.
+     *
+     * @return the <code>MatcherStatistics</code>
+     */
+    public MatcherStatistics getMatcherStatistics() {
+        return matcherStatistics;
+    }
+
     /**
      * Returns statistics for {@link KeyEnums.Type#LINE}.
      *
@@ -436,6 +449,8 @@ public class MergeScenarioStatistics {
             getMergeStatistics(entry.getKey()).add(entry.getValue());
         }
 
+        matcherStatistics.add(other.matcherStatistics);
+
         lineStatistics.add(other.lineStatistics);
         fileStatistics.add(other.fileStatistics);
         directoryStatistics.add(other.directoryStatistics);
@@ -488,6 +503,9 @@ public class MergeScenarioStatistics {
             stats.print(os, indent);
         });
 
+        os.println("Matcher Statistics");
+        matcherStatistics.print(os, indent);
+
         os.println("Line Statistics");
         lineStatistics.print(os, indent);
 
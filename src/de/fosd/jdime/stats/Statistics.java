@@ -356,6 +356,19 @@ public class Statistics {
         }
         serializer.alias(MergeStatistics.class.getSimpleName().toLowerCase(), MergeStatistics.class);
 
+        for (Field field : MatcherStatistics.class.getDeclaredFields()) {
+            if (field.getType().isPrimitive()) {
+                serializer.useAttributeFor(MatcherStatistics.class, field.getName());
+            }
+        }
+        serializer.alias(MatcherStatistics.class.getSimpleName().toLowerCase(), MatcherStatistics.class);
+        serializer.addImplicitMap(MatcherStatistics.class, "algorithms", AlgorithmStatistics.class, "label");
+
+        for (Field field : AlgorithmStatistics.class.getDeclaredFields()) {
+            serializer.useAttributeFor(AlgorithmStatistics.class, field.getName());
+        }
+        serializer.alias(AlgorithmStatistics.class.getSimpleName().toLowerCase(), AlgorithmStatistics.class);
+
         serializer.registerConverter(new Converter() {
 
             private static final String TYPE_ATTR = "type";
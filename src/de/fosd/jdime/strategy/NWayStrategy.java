@@ -29,6 +29,7 @@ import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import de.fosd.jdime.artifact.Symbols;
 import de.fosd.jdime.artifact.ast.ASTNodeArtifact;
 import de.fosd.jdime.artifact.file.FileArtifact;
 import de.fosd.jdime.config.merge.MergeContext;
@@ -89,6 +90,8 @@ public class NWayStrategy extends MergeStrategy<FileArtifact> {
             merged = targetNode;
             next = new ASTNodeArtifact(variants.get(it.next()));
 
+            Symbols.open();
+
             try {
                 long cmdStart = System.currentTimeMillis();
 
@@ -148,6 +151,8 @@ public class NWayStrategy extends MergeStrategy<FileArtifact> {
                 if (!context.isKeepGoing()) {
                     throw new Error(t);
                 }
+            } finally {
+                Symbols.close();
             }
         }
     }
@@ -27,10 +27,12 @@ import java.security.Permission;
 import java.util.logging.Logger;
 import java.util.stream.Stream;
 
+import de.fosd.jdime.artifact.Symbols;
 import de.fosd.jdime.artifact.ast.ASTNodeArtifact;
 import de.fosd.jdime.artifact.file.FileArtifact;
 import de.fosd.jdime.config.merge.MergeContext;
 import de.fosd.jdime.config.merge.MergeScenario;
+import de.fosd.jdime.matcher.MatcherBudget;
 import de.fosd.jdime.operations.MergeOperation;
 import de.fosd.jdime.stats.MergeScenarioStatistics;
 import de.fosd.jdime.stats.Runtime;
@@ -108,6 +110,8 @@ public class StructuredStrategy extends MergeStrategy<FileArtifact> {
 
         LOG.info(() -> String.format("Merging:%nLeft: %s%nBase: %s%nRight: %s", lPath, bPath, rPath));
 
+        Symbols.open();
+
         try {
             Runtime parse = new Runtime(PARSE_LABEL);
             Runtime semistructure = new Runtime(SEMISTRUCTURE_LABEL);
@@ -140,8 +144,12 @@ public class StructuredStrategy extends MergeStrategy<FileArtifact> {
             LOG.finest(() -> String.format("MergeScenario:%n%s", nodeTriple.toString()));
             LOG.finest("Applying an ASTNodeArtifact MergeOperation.");
 
+            context.setMatcherBudget(MatcherBudget.of(context));
+
             try (Runtime.Measurement m = merge.time()) {
                 astMergeOp.apply(context);
+            } finally {
+                context.setMatcherBudget(null);
             }
 
             targetNode.setRevision(MergeScenario.TARGET, true); // TODO do this somewhere else?
@@ -188,6 +196,7 @@ public class StructuredStrategy extends MergeStrategy<FileArtifact> {
             }
         } finally {
             System.setSecurityManager(systemSecurityManager);
+            Symbols.close();
         }
     }
 }
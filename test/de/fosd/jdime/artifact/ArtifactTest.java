@@ -23,9 +23,13 @@
  */
 package de.fosd.jdime.artifact;
 
+import java.util.Collections;
+
+import de.fosd.jdime.stats.KeyEnums;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
 
 /**
  * Tests for the <code>Artifact</code> class.
@@ -38,4 +42,64 @@ public class ArtifactTest {
 
         assertEquals(7, artifact.getMaxDepth());
     }
+
+    @Test
+    public void testEqualTreesHaveEqualHashes() throws Exception {
+        assertEquals(TestTrees.paperTree().getTreeHash(), TestTrees.paperTree().getTreeHash());
+        assertEquals(tree("Statement1", "Statement2").getTreeHash(), tree("Statement1", "Statement2").getTreeHash());
+    }
+
+    @Test
+    public void testLabelChangesHash() throws Exception {
+        assertNotEquals(tree("Statement1", "Statement2").getTreeHash(), tree("Statement1", "Statement3").getTreeHash());
+        assertNotEquals(tree("Statement1", "Statement2").getTreeHash(), tree("Statement1").getTreeHash());
+    }
+
+    @Test
+    public void testChildOrderChangesHash() throws Exception {
+        assertNotEquals(tree("Statement1", "Statement2").getTreeHash(), tree("Statement2", "Statement1").getTreeHash());
+    }
+
+    @Test
+    public void testModifyChildrenInvalidatesHash() throws Exception {
+        TestArtifact root = tree("Statement1", "Statement2");
+        TestArtifact method = root.getChild(0);
+        TreeHash before = root.getTreeHash();
+        TreeHash methodBefore = method.getTreeHash();
+
+        method.modifyChildren(children -> {});
+
+        assertEquals(before, root.getTreeHash());
+
+        method.modifyChildren(Collections::reverse);
+
+        assertNotEquals(methodBefore, method.getTreeHash());
+        assertNotEquals(before, root.getTreeHash());
+        assertEquals(tree("Statement2", "Statement1").getTreeHash(), root.getTreeHash());
+
+        method.modifyChildren(Collections::reverse);
+
+        assertEquals(methodBefore, method.getTreeHash());
+        assertEquals(before, root.getTreeHash());
+    }
+
+    /**
+     * Returns a tree consisting of a class containing a method that contains statements with the given labels.
+     *
+     * @param statements
+     *         the labels of the statements
+     * @return the root of the tree
+     */
+    private static TestArtifact tree(String... statements) {
+        TestArtifact root = new TestArtifact("Class1", KeyEnums.Type.CLASS);
+        TestArtifact method = new TestArtifact("Method1", KeyEnums.Type.METHOD);
+
+        root.addChild(method);
+
+        for (String statement : statements) {
+            method.addChild(new TestArtifact(statement, KeyEnums.Type.NODE));
+        }
+
+        return root;
+    }
 }
\ No newline at end of file
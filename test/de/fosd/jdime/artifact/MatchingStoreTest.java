@@ -0,0 +1,156 @@
+/**
+ * Copyright (C) 2013-2014 Olaf Lessenich
+ * Copyright (C) 2014-2017 University of Passau, Germany
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ * Contributors:
+ *     Olaf Lessenich <lessenic@fim.uni-passau.de>
+ *     Georg Seibt <seibt@fim.uni-passau.de>
+ */
+package de.fosd.jdime.artifact;
+
+import java.util.Map;
+
+import de.fosd.jdime.config.merge.Revision;
+import de.fosd.jdime.matcher.matching.Matching;
+import org.junit.Before;
+import org.junit.Test;
+
+import static de.fosd.jdime.config.merge.MergeScenario.BASE;
+import static de.fosd.jdime.config.merge.MergeScenario.LEFT;
+import static de.fosd.jdime.config.merge.MergeScenario.RIGHT;
+import static de.fosd.jdime.config.merge.MergeScenario.TARGET;
+import static de.fosd.jdime.stats.KeyEnums.Type.NODE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the <code>MatchingStore</code> class.
+ */
+public class MatchingStoreTest {
+
+    private MatchingStore<TestArtifact> store;
+
+    private Matching<TestArtifact> toLeft;
+    private Matching<TestArtifact> toBase;
+    private Matching<TestArtifact> toRight;
+    private Matching<TestArtifact> toTarget;
+
+    @Before
+    public void setUp() throws Exception {
+        store = new MatchingStore<>();
+
+        TestArtifact artifact = new TestArtifact(BASE, "a", NODE);
+
+        toLeft = new Matching<>(new TestArtifact(LEFT, "a", NODE), artifact, 1);
+        toBase = new Matching<>(artifact, new TestArtifact(BASE, "a", NODE), 1);
+        toRight = new Matching<>(artifact, new TestArtifact(RIGHT, "a", NODE), 1);
+        toTarget = new Matching<>(artifact, new TestArtifact(TARGET, "a", NODE), 1);
+    }
+
+    @Test
+    public void storeAndLookup() throws Exception {
+        assertTrue(store.isEmpty());
+        assertNull(store.get(LEFT));
+        assertFalse(store.containsKey(TARGET));
+
+        store.put(LEFT, toLeft);
+        store.put(BASE, toBase);
+        store.put(RIGHT, toRight);
+
+        assertFalse(store.isEmpty());
+        assertSame(toLeft, store.get(LEFT));
+        assertSame(toBase, store.get(BASE));
+        assertSame(toRight, store.get(RIGHT));
+        assertTrue(store.containsKey(RIGHT));
+        assertFalse(store.containsKey(TARGET));
+        assertEquals(3, store.values().size());
+    }
+
+    @Test
+    public void equalRevisions() throws Exception {
+        Revision left = new Revision("left");
+        Revision right = new Revision("right");
+
+        assertNotSame(LEFT, left);
+
+        store.put(left, toLeft);
+        store.put(RIGHT, toRight);
+
+        assertSame(toLeft, store.get(LEFT));
+        assertSame(toLeft, store.get(left));
+        assertSame(toRight, store.get(right));
+        assertEquals(2, store.values().size());
+
+        store.put(LEFT, toBase);
+
+        assertSame(toBase, store.get(left));
+        assertEquals(2, store.values().size());
+    }
+
+    @Test
+    public void otherRevisions() throws Exception {
+        store.put(TARGET, toTarget);
+
+        assertFalse(store.isEmpty());
+        assertSame(toTarget, store.get(TARGET));
+        assertSame(toTarget, store.get(new Revision("target")));
+        assertNull(store.get(LEFT));
+
+        store.put(LEFT, toLeft);
+
+        Map<Revision, Matching<TestArtifact>> map = store.toMap();
+
+        assertEquals(2, map.size());
+        assertSame(toTarget, map.get(TARGET));
+        assertSame(toLeft, map.get(LEFT));
+    }
+
+    @Test
+    public void replace() throws Exception {
+        store.put(RIGHT, toRight);
+        store.put(RIGHT, toLeft);
+        store.put(TARGET, toTarget);
+        store.put(TARGET, toBase);
+
+        assertSame(toLeft, store.get(RIGHT));
+        assertSame(toBase, store.get(TARGET));
+        assertEquals(2, store.values().size());
+        assertEquals(2, store.toMap().size());
+    }
+
+    @Test
+    public void copy() throws Exception {
+        store.put(LEFT, toLeft);
+        store.put(TARGET, toTarget);
+
+        MatchingStore<TestArtifact> copy = new MatchingStore<>(store, Matching::new);
+
+        assertNotSame(toLeft, copy.get(LEFT));
+        assertEquals(toLeft, copy.get(LEFT));
+        assertEquals(toTarget, copy.get(TARGET));
+        assertEquals(2, copy.values().size());
+
+        copy.put(RIGHT, toRight);
+
+        assertNull(store.get(RIGHT));
+    }
+}
@@ -0,0 +1,60 @@
+/**
+ * Copyright (C) 2013-2014 Olaf Lessenich
+ * Copyright (C) 2014-2017 University of Passau, Germany
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ * Contributors:
+ *     Olaf Lessenich <lessenic@fim.uni-passau.de>
+ *     Georg Seibt <seibt@fim.uni-passau.de>
+ */
+package de.fosd.jdime.artifact;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests for the <code>Symbols</code> class.
+ */
+public class SymbolsTest {
+
+    @Test
+    public void equalStringsHaveEqualSymbols() throws Exception {
+        Symbols table = Symbols.current();
+
+        assertEquals(table.symbol(new String("a")), table.symbol(new String("a")));
+        assertNotEquals(table.symbol("a"), table.symbol("b"));
+    }
+
+    @Test
+    public void tableIsKeptWhileAnyMergeHasItOpen() throws Exception {
+        Symbols first = Symbols.open();
+        Symbols second = Symbols.open();
+
+        assertSame(first, second);
+
+        Symbols.close();
+        assertSame(first, Symbols.current());
+
+        Symbols.close();
+        assertNotSame(first, Symbols.current());
+        assertEquals(0, Symbols.current().size());
+    }
+}
@@ -205,6 +205,46 @@ public final class TestTrees {
         return Tuple.of(classLeft, classRight);
     }
 
+    /**
+     * Returns two test trees whose classes contain two copies each of a method that was changed between them. The
+     * pairs of copies are isomorphic, their <code>Matchings</code> may therefore be re-instantiated from each other.
+     *
+     * @return the trees
+     */
+    public static Tuple<TestArtifact, TestArtifact> isomorphicTree() {
+        TestArtifact classLeft = new TestArtifact(LEFT, "Class1", CLASS);
+        TestArtifact classRight = new TestArtifact(RIGHT, "Class1", CLASS);
+
+        for (int i = 0; i < 2; i++) {
+            TestArtifact mLeft = new TestArtifact(LEFT, "Method1", METHOD);
+            TestArtifact mRight = new TestArtifact(RIGHT, "Method1", METHOD);
+
+            mLeft.addChild(new TestArtifact(LEFT, "Statement1", NODE));
+            mLeft.addChild(new TestArtifact(LEFT, "Statement2", NODE));
+
+            mRight.addChild(new TestArtifact(RIGHT, "Statement1", NODE));
+            mRight.addChild(new TestArtifact(RIGHT, "Statement3", NODE));
+
+            classLeft.addChild(mLeft);
+            classRight.addChild(mRight);
+        }
+
+        TestArtifact m2Left = new TestArtifact(LEFT, "Method2", METHOD);
+        TestArtifact m2Right = new TestArtifact(RIGHT, "Method2", METHOD);
+
+        m2Left.addChild(new TestArtifact(LEFT, "Statement4", NODE));
+        m2Right.addChild(new TestArtifact(RIGHT, "Statement4", NODE));
+        m2Right.addChild(new TestArtifact(RIGHT, "Statement5", NODE));
+
+        classLeft.addChild(m2Left);
+        classRight.addChild(m2Right);
+
+        root(classLeft).renumber();
+        root(classRight).renumber();
+
+        return Tuple.of(classLeft, classRight);
+    }
+
     public static TestArtifact conflictTree() {
         TestArtifact clazz = new TestArtifact("Class", CLASS);
         TestArtifact method = new TestArtifact("Method", CLASS);
@@ -24,15 +24,21 @@
 package de.fosd.jdime.artifact.ast;
 
 import java.io.File;
+import java.util.List;
 
 import de.fosd.jdime.JDimeTest;
+import de.fosd.jdime.artifact.Artifacts;
+import de.fosd.jdime.artifact.Symbols;
 import de.fosd.jdime.artifact.file.FileArtifact;
 import de.fosd.jdime.config.JDimeConfig;
 import de.fosd.jdime.config.merge.Revision;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import static de.fosd.jdime.config.merge.MergeScenario.LEFT;
+import static de.fosd.jdime.config.merge.MergeScenario.RIGHT;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.fail;
 
 /**
@@ -81,4 +87,48 @@ public class ASTNodeArtifactTest extends JDimeTest {
             fail(e.toString());
         }
     }
+
+    @Test
+    public void testMatchesAgreesWithRepresentations() throws Exception {
+        String path = "SimpleTests/Bag/Bag.java";
+        List<ASTNodeArtifact> left = Artifacts.dfs(new ASTNodeArtifact(new FileArtifact(LEFT, file(leftDir, path))));
+        List<ASTNodeArtifact> right = Artifacts.dfs(new ASTNodeArtifact(new FileArtifact(RIGHT, file(rightDir, path))));
+
+        assertMatchesAgree(left, right);
+
+        // the symbols cached by the nodes must not be compared with those of a new table
+        Symbols table = Symbols.open();
+        Symbols.close();
+        assertNotSame(table, Symbols.current());
+
+        assertMatchesAgree(left, right);
+        assertMatchesAgree(left, Artifacts.dfs(new ASTNodeArtifact(new FileArtifact(RIGHT, file(rightDir, path)))));
+    }
+
+    /**
+     * Asserts that {@link ASTNodeArtifact#matches(ASTNodeArtifact)} and the comparison of unique label symbols agree
+     * with comparing the matching representations of the encapsulated <code>ASTNode</code>s for all pairs of the
+     * given nodes.
+     *
+     * @param left
+     *         the left nodes
+     * @param right
+     *         the right nodes
+     */
+    private static void assertMatchesAgree(List<ASTNodeArtifact> left, List<ASTNodeArtifact> right) {
+
+        for (ASTNodeArtifact l : left) {
+            for (ASTNodeArtifact r : right) {
+                assertEquals(l.astnode.matches(r.astnode), l.matches(r));
+
+                if (l.getUniqueLabel().isPresent() && r.getUniqueLabel().isPresent()) {
+                    String lLabel = l.getUniqueLabel().get().get();
+                    String rLabel = r.getUniqueLabel().get().get();
+
+                    Symbols table = Symbols.current();
+                    assertEquals(lLabel.equals(rLabel), l.getUniqueLabelSymbol(table) == r.getUniqueLabelSymbol(table));
+                }
+            }
+        }
+    }
 }
@@ -0,0 +1,192 @@
+/**
+ * Copyright (C) 2013-2014 Olaf Lessenich
+ * Copyright (C) 2014-2017 University of Passau, Germany
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ * Contributors:
+ *     Olaf Lessenich <lessenic@fim.uni-passau.de>
+ *     Georg Seibt <seibt@fim.uni-passau.de>
+ */
+package de.fosd.jdime.matcher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+import de.fosd.jdime.artifact.TestArtifact;
+import de.fosd.jdime.config.merge.MergeContext;
+import de.fosd.jdime.stats.KeyEnums;
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the <code>LookAheadIndex</code> class.
+ */
+public class LookAheadIndexTest {
+
+    private static final int[] DEPTHS = {MergeContext.LOOKAHEAD_OFF, 1, 2, MergeContext.LOOKAHEAD_FULL};
+
+    private static final KeyEnums.Type[] TYPES = {KeyEnums.Type.NODE, KeyEnums.Type.TRY, KeyEnums.Type.METHOD};
+
+    /**
+     * A <code>TestArtifact</code> whose match key is its type unless its label starts with '?'.
+     */
+    private static final class KeyedArtifact extends TestArtifact {
+
+        private final Object key;
+
+        private KeyedArtifact(String label, KeyEnums.Type type) {
+            super(label, type);
+            this.key = label.startsWith("?") ? null : type;
+        }
+
+        @Override
+        public Object getMatchKey() {
+            return key;
+        }
+    }
+
+    @Test
+    public void findAgreesWithSearch() throws Exception {
+        Random random = new Random(42);
+
+        for (int round = 0; round < 50; round++) {
+            TestArtifact tree = tree(random, 40, false);
+            TestArtifact other = tree(random, 20, false);
+            LookAheadIndex<TestArtifact> index = new LookAheadIndex<>(tree);
+
+            for (TestArtifact subtree : nodes(tree)) {
+                for (TestArtifact nodeToFind : nodes(other)) {
+                    assertTrue(index.supports(subtree, nodeToFind));
+                    assertSameResult(index, subtree, nodeToFind);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void findAgreesWithSearchWithoutMatchKeys() throws Exception {
+        Random random = new Random(42);
+
+        for (int round = 0; round < 50; round++) {
+            // either the indexed tree or the nodes to find contain nodes without a match key
+            TestArtifact tree = tree(random, 40, round % 2 == 0);
+            TestArtifact other = tree(random, 20, round % 2 == 1);
+            LookAheadIndex<TestArtifact> index = new LookAheadIndex<>(tree);
+
+            for (TestArtifact subtree : nodes(tree)) {
+                for (TestArtifact nodeToFind : nodes(other)) {
+                    assertSameResult(index, subtree, nodeToFind);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void unsupportedWithoutMatchKeys() throws Exception {
+        TestArtifact root = new KeyedArtifact("a", KeyEnums.Type.TRY);
+        TestArtifact keyless = new KeyedArtifact("?a", KeyEnums.Type.NODE);
+
+        root.addChild(new KeyedArtifact("b", KeyEnums.Type.NODE));
+
+        assertTrue(new LookAheadIndex<>(root).supports(root, root));
+        assertFalse(new LookAheadIndex<>(root).supports(root, keyless));
+        assertFalse(new LookAheadIndex<>(root).supports(keyless, root));
+
+        root.addChild(new KeyedArtifact("?b", KeyEnums.Type.NODE));
+
+        assertFalse(new LookAheadIndex<>(root).supports(root, root));
+    }
+
+    /**
+     * Asserts that looking up <code>nodeToFind</code> in <code>tree</code> using the <code>index</code> (if it
+     * supports the lookup) returns the same node as searching <code>tree</code> for every look-ahead depth.
+     *
+     * @param index
+     *         the <code>LookAheadIndex</code> of the tree containing <code>tree</code>
+     * @param tree
+     *         the tree to search in
+     * @param nodeToFind
+     *         the node to find a match for
+     */
+    private static void assertSameResult(LookAheadIndex<TestArtifact> index, TestArtifact tree,
+                                         TestArtifact nodeToFind) {
+
+        for (int depth : DEPTHS) {
+            Optional<TestArtifact> expected = Matcher.findMatchingNode(tree, nodeToFind, depth);
+            Optional<TestArtifact> actual = Matcher.findMatchingNode(index, tree, nodeToFind, depth);
+
+            assertSame(expected.orElse(null), actual.orElse(null));
+        }
+    }
+
+    /**
+     * Returns a random tree with labels and types from a small alphabet so that nodes match at different depths.
+     *
+     * @param random
+     *         the source of randomness
+     * @param size
+     *         the number of nodes of the tree
+     * @param keyless
+     *         whether some of the nodes should have no match key
+     * @return the root of the tree
+     */
+    private static TestArtifact tree(Random random, int size, boolean keyless) {
+        List<TestArtifact> nodes = new ArrayList<>();
+
+        for (int i = 0; i < size; i++) {
+            String label = String.valueOf((char) ('a' + random.nextInt(3)));
+
+            if (keyless && random.nextInt(5) == 0) {
+                label = "?" + label;
+            }
+
+            TestArtifact node = new KeyedArtifact(label, TYPES[random.nextInt(TYPES.length)]);
+
+            if (!nodes.isEmpty()) {
+                nodes.get(random.nextInt(nodes.size())).addChild(node);
+            }
+
+            nodes.add(node);
+        }
+
+        return nodes.get(0);
+    }
+
+    /**
+     * Returns the nodes of the given tree in DFS order.
+     *
+     * @param tree
+     *         the root of the tree
+     * @return the nodes of the tree
+     */
+    private static List<TestArtifact> nodes(TestArtifact tree) {
+        List<TestArtifact> nodes = new ArrayList<>();
+
+        nodes.add(tree);
+
+        for (TestArtifact child : tree.getChildren()) {
+            nodes.addAll(nodes(child));
+        }
+
+        return nodes;
+    }
+}
@@ -0,0 +1,471 @@
+/**
+ * Copyright (C) 2013-2014 Olaf Lessenich
+ * Copyright (C) 2014-2017 University of Passau, Germany
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ * Contributors:
+ *     Olaf Lessenich <lessenic@fim.uni-passau.de>
+ *     Georg Seibt <seibt@fim.uni-passau.de>
+ */
+package de.fosd.jdime.matcher;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import de.fosd.jdime.artifact.TestArtifact;
+import de.fosd.jdime.artifact.TestTrees;
+import de.fosd.jdime.config.merge.MergeContext;
+import de.fosd.jdime.config.merge.Revision;
+import de.fosd.jdime.matcher.unordered.assignmentProblem.AssignmentSolver;
+import de.fosd.jdime.matcher.matching.Color;
+import de.fosd.jdime.matcher.matching.Matching;
+import de.fosd.jdime.matcher.matching.Matchings;
+import de.fosd.jdime.matcher.ordered.PositionalMatcher;
+import de.fosd.jdime.stats.KeyEnums;
+import de.fosd.jdime.stats.MatcherStatistics;
+import de.fosd.jdime.util.Tuple;
+import org.junit.Test;
+
+import static de.fosd.jdime.artifact.Artifacts.root;
+import static de.fosd.jdime.config.merge.MergeScenario.BASE;
+import static de.fosd.jdime.config.merge.MergeScenario.LEFT;
+import static de.fosd.jdime.config.merge.MergeScenario.RIGHT;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the <code>Matcher</code> class.
+ */
+public class MatcherTest {
+
+    @Test
+    public void memoIsOffByDefault() throws Exception {
+        assertEquals(0, new MergeContext().getMatcherMemoSize());
+    }
+
+    @Test
+    public void memoAndIsomorphismCacheDoNotChangeMatchings() throws Exception {
+
+        for (int memoSize : new int[] {1, 2, 10000}) {
+            assertSameWithMemo(TestTrees::simpleTree, memoSize, context -> {});
+            assertSameWithMemo(TestTrees::tryTree, memoSize, context -> {});
+            assertSameWithMemo(TestTrees::tryTree, memoSize, context -> context.setLookAhead(MergeContext.LOOKAHEAD_FULL));
+            assertSameWithMemo(TestTrees::isomorphicTree, memoSize, context -> {});
+            assertSameWithMemo(TestTrees::isomorphicTree, memoSize, context -> {
+                context.setMatcherParallel(true);
+                context.setMatcherParallelMinSize(0);
+            });
+        }
+    }
+
+    @Test
+    public void parallelMatchingDoesNotChangeMatchings() throws Exception {
+        List<Consumer<MergeContext>> modes = Arrays.asList(
+                context -> {},
+                context -> context.setMatcherMemoSize(10000),
+                context -> context.setMatcherAssignmentSolver(AssignmentSolver.SHORTEST_PATH),
+                context -> context.setMatcherPruning(true), // matched sequentially
+                context -> context.setMatcherDiffMinChildren(2) // matched sequentially
+        );
+
+        for (Consumer<MergeContext> mode : modes) {
+            Random random = new Random(42);
+
+            for (int round = 0; round < 20; round++) {
+                long seed = random.nextLong();
+
+                MergeContext sequential = context(0);
+                MergeContext parallel = context(0);
+
+                mode.accept(sequential);
+                mode.accept(parallel);
+
+                parallel.setMatcherParallel(true);
+                parallel.setMatcherParallelMinSize(0);
+
+                assertEquals(match(randomTrees(new Random(seed), 150), sequential),
+                             match(randomTrees(new Random(seed), 150), parallel));
+            }
+        }
+    }
+
+    @Test
+    public void leanModeDoesNotChangeMatchings() throws Exception {
+        List<Supplier<Tuple<TestArtifact, TestArtifact>>> fixedTrees = Arrays.asList(
+                TestTrees::simpleTree, TestTrees::tryTree, TestTrees::isomorphicTree);
+
+        List<Consumer<MergeContext>> modes = Arrays.asList(
+                context -> {},
+                context -> context.setLookAhead(MergeContext.LOOKAHEAD_FULL),
+                context -> context.setMatcherAssignmentSolver(AssignmentSolver.SHORTEST_PATH),
+                context -> context.setMatcherPruning(true),
+                context -> context.setMatcherDiffMinChildren(2),
+                context -> context.setMatcherWorkBudget(10),
+                context -> {
+                    context.setMatcherParallel(true);
+                    context.setMatcherParallelMinSize(0);
+                }
+        );
+
+        for (int memoSize : new int[] {0, 1, 2, 10000}) {
+
+            for (Consumer<MergeContext> mode : modes) {
+                Random random = new Random(42);
+
+                for (int round = 0; round < 10; round++) {
+                    long seed = random.nextLong();
+
+                    MergeContext normal = context(memoSize);
+                    MergeContext lean = context(memoSize);
+
+                    mode.accept(normal);
+                    mode.accept(lean);
+
+                    lean.setMatcherLean(true);
+
+                    assertEquals(match(randomTrees(new Random(seed), 150), normal),
+                                 match(randomTrees(new Random(seed), 150), lean));
+                    assertEquals(statistics(normal).getDegradedNodes(), statistics(lean).getDegradedNodes());
+                }
+
+                for (Supplier<Tuple<TestArtifact, TestArtifact>> trees : fixedTrees) {
+                    MergeContext normal = context(memoSize);
+                    MergeContext lean = context(memoSize);
+
+                    mode.accept(normal);
+                    mode.accept(lean);
+
+                    lean.setMatcherLean(true);
+
+                    assertEquals(match(trees.get(), normal), match(trees.get(), lean));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void isomorphicPairsAreReInstantiated() throws Exception {
+
+        for (int memoSize : new int[] {1, 2, 10000}) {
+            MergeContext context = context(memoSize);
+
+            assertEquals(match(TestTrees.isomorphicTree(), context(0)), match(TestTrees.isomorphicTree(), context));
+            assertTrue(statistics(context).getIsomorphismHits() > 0);
+        }
+    }
+
+    @Test
+    public void seededNodesAreOnlyMatchedWithTheirCounterparts() throws Exception {
+        Tuple<TestArtifact, TestArtifact> trees = TestTrees.isomorphicTree();
+        MergeContext context = context(10000);
+
+        /*
+         * The first Statement1 of the left tree and the second Statement1 of the right tree are matched with the same
+         * base node. Both copies of Method1 are isomorphic in both trees, so matchings computed for one pair of them
+         * must not be re-instantiated for another pair.
+         */
+        TestArtifact left = trees.x.getChild(0).getChild(0);
+        TestArtifact right = trees.y.getChild(1).getChild(0);
+        TestArtifact base = new TestArtifact(BASE, "Statement1", KeyEnums.Type.NODE);
+
+        Matching<TestArtifact> leftBase = new Matching<>(left, base, 1);
+        Matching<TestArtifact> baseRight = new Matching<>(base, right, 1);
+
+        left.addMatching(leftBase);
+        base.addMatching(leftBase);
+        base.addMatching(baseRight);
+        right.addMatching(baseRight);
+
+        context.setMatcherBaseSeeding(true);
+
+        Matchings<TestArtifact> matchings = new Matcher<>(trees.x, trees.y, BASE).match(context, Color.BLUE);
+
+        assertTrue(matchings.get(left, right).map(m -> m.getScore() > 0).orElse(false));
+
+        for (Matching<TestArtifact> matching : matchings) {
+
+            if (matching.getScore() > 0 && (matching.getLeft() == left || matching.getRight() == right)) {
+                assertSame(left, matching.getLeft());
+                assertSame(right, matching.getRight());
+            }
+        }
+    }
+
+    @Test
+    public void exhaustedBudgetFallsBackToPositionalMatcher() throws Exception {
+        MergeContext context = context(0);
+        Tuple<TestArtifact, TestArtifact> trees = TestTrees.simpleTree();
+
+        context.setMatcherWorkBudget(1);
+
+        Set<String> matchings = match(trees, context);
+        List<String> degraded = statistics(context).getDegradedNodes();
+        String root = String.format("%s -> %s (", trees.x.getId(), trees.y.getId());
+
+        assertFalse(degraded.isEmpty());
+        assertEquals(String.format("%s - %s (%s)", trees.x.getId(), trees.y.getId(), trees.x.getType()), degraded.get(0));
+        assertTrue(matchings.stream().anyMatch(m -> m.startsWith(root) && m.endsWith(PositionalMatcher.class.getSimpleName() + ")")));
+    }
+
+    @Test
+    public void budgetIsDeterministic() throws Exception {
+        Random random = new Random(42);
+
+        for (int round = 0; round < 20; round++) {
+            long seed = random.nextLong();
+            int budget = 1 + random.nextInt(20);
+
+            MergeContext first = context(0);
+            MergeContext second = context(0);
+            MergeContext parallel = context(0); // a work budget disables matching in parallel
+
+            first.setMatcherWorkBudget(budget);
+            second.setMatcherWorkBudget(budget);
+            parallel.setMatcherWorkBudget(budget);
+            parallel.setMatcherParallel(true);
+            parallel.setMatcherParallelMinSize(0);
+
+            Set<String> matchings = match(randomTrees(new Random(seed), 150), first);
+            List<String> degraded = statistics(first).getDegradedNodes();
+
+            assertFalse(degraded.isEmpty());
+            assertEquals(matchings, match(randomTrees(new Random(seed), 150), second));
+            assertEquals(degraded, statistics(second).getDegradedNodes());
+            assertEquals(matchings, match(randomTrees(new Random(seed), 150), parallel));
+            assertEquals(degraded, statistics(parallel).getDegradedNodes());
+        }
+    }
+
+    @Test
+    public void degradedMatchingsAreNotCached() throws Exception {
+        Supplier<Tuple<TestArtifact, TestArtifact>> trees = () -> {
+            TestArtifact left = new TestArtifact(LEFT, "Class", KeyEnums.Type.CLASS);
+            TestArtifact right = new TestArtifact(RIGHT, "Class", KeyEnums.Type.CLASS);
+
+            // two isomorphic copies of A on each side whose B was changed between the sides
+            for (int i = 0; i < 2; i++) {
+                left.addChild(tree(LEFT, "A", tree(LEFT, "B", tree(LEFT, "c"), tree(LEFT, "d"))));
+                right.addChild(tree(RIGHT, "A", tree(RIGHT, "B", tree(RIGHT, "c"), tree(RIGHT, "e"))));
+            }
+
+            root(left).renumber();
+            root(right).renumber();
+
+            return Tuple.of(left, right);
+        };
+
+        /*
+         * The budget covers the 2 * 2 pairs of children of the classes and the 1 * 1 pair of the first two copies of
+         * A. Their Bs are degraded, so the Matchings of the copies of A must not be re-instantiated for the other
+         * copies.
+         */
+        MergeContext withCache = context(10000);
+        MergeContext withoutCache = context(0);
+
+        withCache.setMatcherWorkBudget(5);
+        withoutCache.setMatcherWorkBudget(5);
+
+        assertEquals(match(trees.get(), withoutCache), match(trees.get(), withCache));
+        assertEquals(statistics(withoutCache).getDegradedNodes(), statistics(withCache).getDegradedNodes());
+        assertEquals(0, statistics(withCache).getIsomorphismHits());
+    }
+
+    @Test
+    public void budgetIsSharedByAllRunsOfAMerge() throws Exception {
+        MatcherBudget unlimited = new MatcherBudget(0, 0);
+        MergeContext context = context(0);
+
+        context.setMatcherBudget(unlimited);
+        match(TestTrees.simpleTree(), context);
+
+        assertTrue(unlimited.getUsed() > 0);
+
+        context = context(0);
+        context.setMatcherBudget(new MatcherBudget((int) unlimited.getUsed(), 0));
+
+        match(TestTrees.simpleTree(), context);
+        assertTrue(statistics(context).getDegradedNodes().isEmpty());
+
+        match(TestTrees.simpleTree(), context);
+        assertFalse(statistics(context).getDegradedNodes().isEmpty());
+    }
+
+    /**
+     * Asserts that matching the trees returned by <code>trees</code> with and without the memo (and therefore the
+     * <code>IsomorphismCache</code>) results in the same <code>Matchings</code>. Both runs use a
+     * <code>MergeContext</code> configured by <code>configure</code>.
+     *
+     * @param trees
+     *         supplies new instances of the trees to match
+     * @param memoSize
+     *         the size of the memo and the <code>IsomorphismCache</code>
+     * @param configure
+     *         configures the <code>MergeContext</code> of both runs
+     */
+    private static void assertSameWithMemo(Supplier<Tuple<TestArtifact, TestArtifact>> trees, int memoSize,
+                                           Consumer<MergeContext> configure) {
+        MergeContext withoutMemo = context(0);
+        MergeContext withMemo = context(memoSize);
+
+        configure.accept(withoutMemo);
+        configure.accept(withMemo);
+
+        assertEquals(match(trees.get(), withoutMemo), match(trees.get(), withMemo));
+        assertTrue(statistics(withMemo).getMemoMisses() > 0);
+    }
+
+    /**
+     * Returns a <code>MergeContext</code> collecting statistics and using a memo of the given size.
+     *
+     * @param memoSize
+     *         the size of the memo
+     * @return the <code>MergeContext</code>
+     */
+    static MergeContext context(int memoSize) {
+        MergeContext context = new MergeContext();
+
+        context.collectStatistics(true);
+        context.setMatcherMemoSize(memoSize);
+
+        return context;
+    }
+
+    /**
+     * Returns a new <code>NODE</code> with the given <code>label</code> and <code>children</code>.
+     *
+     * @param revision
+     *         the revision of the nodes
+     * @param label
+     *         the label of the node
+     * @param children
+     *         the children of the node
+     * @return the new node
+     */
+    private static TestArtifact tree(Revision revision, String label, TestArtifact... children) {
+        TestArtifact node = new TestArtifact(revision, label, KeyEnums.Type.NODE);
+
+        for (TestArtifact child : children) {
+            node.addChild(child);
+        }
+
+        return node;
+    }
+
+    /**
+     * Returns a random tree of roughly <code>size</code> nodes and a modified copy of it. Nodes of the type
+     * <code>METHOD</code> are unordered, all others are ordered. In the copy, some nodes are relabeled, added or
+     * removed and some lists of children are shuffled.
+     *
+     * @param random
+     *         the source of randomness
+     * @param size
+     *         the number of nodes to generate
+     * @return the left and right tree
+     */
+    static Tuple<TestArtifact, TestArtifact> randomTrees(Random random, int size) {
+        TestArtifact left = new TestArtifact(LEFT, "Class", KeyEnums.Type.CLASS);
+        TestArtifact right = new TestArtifact(RIGHT, "Class", KeyEnums.Type.CLASS);
+        List<TestArtifact[]> pairs = new ArrayList<>();
+
+        pairs.add(new TestArtifact[] {left, right});
+
+        /*
+         * Every new node is attached to a uniformly chosen existing one. This keeps the trees bushy, shallow and of
+         * roughly equal size. Nodes that exist on only one side only receive children on that side.
+         */
+        for (int i = 0; i < size; i++) {
+            TestArtifact[] parent = pairs.get(random.nextInt(pairs.size()));
+            KeyEnums.Type type = random.nextInt(3) == 0 ? KeyEnums.Type.METHOD : KeyEnums.Type.NODE;
+            String label = String.valueOf((char) ('a' + random.nextInt(4)));
+            double p = random.nextDouble();
+
+            TestArtifact l = parent[0] != null && p < 0.9 ? new TestArtifact(LEFT, label, type) : null;
+            TestArtifact r = parent[1] != null && (p < 0.8 || p >= 0.9)
+                    ? new TestArtifact(RIGHT, random.nextInt(8) == 0 ? "x" : label, type) : null;
+
+            if (l == null && r == null) {
+                continue;
+            }
+
+            if (l != null) {
+                parent[0].addChild(l);
+            }
+
+            if (r != null) {
+                parent[1].addChild(r);
+            }
+
+            pairs.add(new TestArtifact[] {l, r});
+        }
+
+        for (TestArtifact[] pair : pairs) {
+
+            if (pair[1] != null && random.nextInt(4) == 0) {
+                List<TestArtifact> children = new ArrayList<>(pair[1].getChildren());
+
+                Collections.shuffle(children, random);
+                pair[1].setChildren(children);
+            }
+        }
+
+        root(left).renumber();
+        root(right).renumber();
+
+        return Tuple.of(left, right);
+    }
+
+    /**
+     * Returns the <code>MatcherStatistics</code> collected in the given <code>context</code>.
+     *
+     * @param context
+     *         the <code>MergeContext</code>
+     * @return the <code>MatcherStatistics</code>
+     */
+    static MatcherStatistics statistics(MergeContext context) {
+        return context.getStatistics().getCurrentFileMergeScenarioStatistics().getMatcherStatistics();
+    }
+
+    /**
+     * Matches the given trees and returns the resulting <code>Matchings</code> as a sorted set of strings.
+     *
+     * @param trees
+     *         the trees to match
+     * @param context
+     *         the <code>MergeContext</code> to use
+     * @return the <code>Matchings</code> as strings
+     */
+    static Set<String> match(Tuple<TestArtifact, TestArtifact> trees, MergeContext context) {
+        Matchings<TestArtifact> matchings = new Matcher<>(trees.x, trees.y).match(context, Color.GREEN);
+        Set<String> result = new TreeSet<>();
+
+        for (Matching<TestArtifact> matching : matchings) {
+            result.add(String.format("%s -> %s (%d, %s)", matching.getLeft().getId(), matching.getRight().getId(),
+                                     matching.getScore(), matching.getAlgorithm()));
+        }
+
+        return result;
+    }
+}
@@ -23,13 +23,21 @@
  */
 package de.fosd.jdime.matcher.cost_model;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
 
 import de.fosd.jdime.JDimeTest;
+import de.fosd.jdime.artifact.Artifacts;
 import de.fosd.jdime.artifact.TestArtifact;
 import de.fosd.jdime.config.merge.MergeContext;
 import de.fosd.jdime.matcher.matching.Matching;
 import de.fosd.jdime.matcher.matching.Matchings;
+import de.fosd.jdime.util.Tuple;
+import org.apache.commons.math3.random.RandomGenerator;
 import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Test;
@@ -37,8 +45,12 @@ import org.junit.Test;
 import static de.fosd.jdime.artifact.Artifacts.root;
 import static de.fosd.jdime.config.merge.MergeScenario.LEFT;
 import static de.fosd.jdime.config.merge.MergeScenario.RIGHT;
+import static de.fosd.jdime.stats.KeyEnums.Type.CLASS;
+import static de.fosd.jdime.stats.KeyEnums.Type.METHOD;
 import static de.fosd.jdime.stats.KeyEnums.Type.NODE;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 public class CostModelMatcherTest extends JDimeTest {
 
@@ -163,7 +175,297 @@ public class CostModelMatcherTest extends JDimeTest {
         testCostModelMatching(expected, 1.0f, 1.0f, 0.5f, 0.5f, 0);
     }
 
-    private void testCostModelMatching(Matchings<TestArtifact> expected, float wr, float wn, float wa, float ws, float wo) throws Exception {
+    @Test
+    public void deltaEvaluationMatchesFullRecomputation() throws Exception {
+
+        for (boolean fixRandomPercentage : new boolean[] {true, false}) {
+            MergeContext context = context(1.0f, 1.0f, 0.5f, 0.5f, 0);
+            context.setCmMatcherFixRandomPercentage(fixRandomPercentage);
+
+            RecordingMatcher delta = new RecordingMatcher(true);
+            RecordingMatcher full = new RecordingMatcher(false);
+
+            Matchings<TestArtifact> deltaMatchings = delta.match(context, left, right);
+            Matchings<TestArtifact> fullMatchings = full.match(context, left, right);
+
+            // the acceptance probabilities are derived from the costs of the current and proposed matchings
+            assertEquals(context.getCostModelIterations(), delta.acceptanceProbabilities.size());
+            assertEquals(full.acceptanceProbabilities, delta.acceptanceProbabilities);
+            assertEquals(fullMatchings, deltaMatchings);
+            assertEquals(matcher.cost(context, fullMatchings, left, right),
+                         matcher.cost(context, deltaMatchings, left, right), 0);
+        }
+    }
+
+    @Test
+    public void incrementalBoundsAndCostsMatchFullRecomputation() throws Exception {
+
+        for (long seed = 0; seed < 10; seed++) {
+            MergeContext context = context(1.0f, 1.0f, 0.5f, 0.5f, 0);
+            context.setSeed(Optional.of(seed));
+
+            RecordingMatcher delta = new RecordingMatcher(true);
+            RecordingMatcher full = new RecordingMatcher(false);
+
+            CMParameters<TestArtifact> deltaParameters = delta.parameters(context, 0);
+            CMParameters<TestArtifact> fullParameters = full.parameters(context, 0);
+
+            deltaParameters.edges = matcher.candidateEdges(left, right, new CMMatchings<>(left, right), 0);
+            fullParameters.edges = deltaParameters.edges;
+
+            CMMatchings<TestArtifact> deltaFixed = new CMMatchings<>(left, right);
+            CMMatchings<TestArtifact> fullFixed = new CMMatchings<>(left, right);
+            Random random = new Random(seed);
+
+            for (int step = 0; step < 5; step++) {
+                CMMatchings<TestArtifact> deltaCompleted = delta.complete(deltaFixed, deltaParameters);
+                CMMatchings<TestArtifact> fullCompleted = full.complete(fullFixed, fullParameters);
+
+                assertFalse(delta.bounds.isEmpty());
+                assertEquals(full.bounds, delta.bounds);
+                assertEquals(fullCompleted, deltaCompleted);
+                assertEquals(full.cost(fullCompleted, fullParameters),
+                             delta.cost(deltaCompleted, deltaParameters), 0);
+
+                // fix a random part of the completed matchings for the next step, as proposing new matchings does
+                deltaFixed = new CMMatchings<>(left, right);
+                fullFixed = new CMMatchings<>(left, right);
+
+                for (int i = 0; i < deltaCompleted.size(); i++) {
+
+                    if (random.nextBoolean()) {
+                        deltaFixed.add(deltaCompleted.get(i));
+                        fullFixed.add(fullCompleted.get(i));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void singleChainReproducesSequentialResult() throws Exception {
+        MergeContext context = context(1.0f, 1.0f, 0.5f, 0.5f, 0);
+        context.setCmMatcherChains(1);
+
+        // the result of the CostModelMatcher for seed 42 before chains were introduced
+        Matchings<TestArtifact> expected = new Matchings<>();
+
+        expected.add(new Matching<>(l0, r0, 0));
+
+        expected.add(new Matching<>(l1, r3, 0));
+        expected.add(new Matching<>(l2, r9, 0));
+        expected.add(new Matching<>(l3, r8, 0));
+
+        expected.add(new Matching<>(l5, r7, 0));
+        expected.add(new Matching<>(l6, r5, 0));
+        expected.add(new Matching<>(l7, r6, 0));
+
+        assertEquals(expected, matcher.match(context, left, right));
+    }
+
+    @Test
+    public void multipleChainsAreIndependentOfScheduling() throws Exception {
+        int chains = 4;
+
+        MergeContext context = context(1.0f, 1.0f, 0.5f, 0.5f, 0);
+        context.setCmMatcherChains(chains);
+
+        MergeContext single = context(1.0f, 1.0f, 0.5f, 0.5f, 0);
+        single.setCmMatcherChains(1);
+
+        // the lowest cost result of the chains run one at a time, ties are broken in favor of the lower index
+        Matchings<TestArtifact> expected = null;
+        float expectedCost = Float.POSITIVE_INFINITY;
+
+        for (int chain = 0; chain < chains; chain++) {
+            Matchings<TestArtifact> result = new ChainMatcher(chain).match(single, left, right);
+            float cost = matcher.cost(single, result, left, right);
+
+            if (cost < expectedCost) {
+                expected = result;
+                expectedCost = cost;
+            }
+        }
+
+        for (int run = 0; run < 10; run++) {
+            Matchings<TestArtifact> actual = matcher.match(context, left, right);
+
+            assertEquals(expected, actual);
+            assertEquals(expectedCost, matcher.cost(context, actual, left, right), 0);
+        }
+    }
+
+    @Test
+    public void noCandidateLimitKeepsCompleteGraph() throws Exception {
+        TestArtifact mixedLeft = new TestArtifact(LEFT, "A", CLASS);
+        mixedLeft.addChild(new TestArtifact(LEFT, "B", METHOD));
+        mixedLeft.addChild(new TestArtifact(LEFT, "C", NODE));
+
+        TestArtifact mixedRight = new TestArtifact(RIGHT, "A", CLASS);
+        mixedRight.addChild(new TestArtifact(RIGHT, "B", METHOD));
+        mixedRight.addChild(new TestArtifact(RIGHT, "D", METHOD));
+        mixedRight.addChild(new TestArtifact(RIGHT, "C", NODE));
+
+        root(mixedLeft).renumber();
+        root(mixedRight).renumber();
+
+        assertEquals(completeGraph(left, right), matcher.candidateEdges(left, right, new CMMatchings<>(left, right), 0));
+        assertEquals(completeGraph(mixedLeft, mixedRight),
+                     matcher.candidateEdges(mixedLeft, mixedRight, new CMMatchings<>(mixedLeft, mixedRight), 0));
+    }
+
+    @Test
+    public void candidateLimitKeepsNoMatchAndPreFixedEdges() throws Exception {
+        CMMatchings<TestArtifact> preFixed = new CMMatchings<>(left, right);
+        preFixed.add(new CMMatching<>(l7, r5));
+
+        Tuple<TestArtifact, TestArtifact> preFixedEdge = Tuple.of(l7, r5);
+        Set<Tuple<TestArtifact, TestArtifact>> complete = new HashSet<>(completeGraph(left, right));
+
+        // l7 and r5 have more plausible partners
+        assertFalse(matcher.candidateEdges(left, right, new CMMatchings<>(left, right), 1).contains(preFixedEdge));
+
+        for (int candidates = 1; candidates <= 3; candidates++) {
+            List<Tuple<TestArtifact, TestArtifact>> edges = matcher.candidateEdges(left, right, preFixed, candidates);
+
+            assertTrue(edges.size() < complete.size());
+            assertEquals(edges.size(), new HashSet<>(edges).size());
+            assertTrue(complete.containsAll(edges));
+            assertTrue(edges.contains(preFixedEdge));
+
+            for (TestArtifact artifact : Artifacts.bfs(left)) {
+                assertTrue(edges.contains(Tuple.of(artifact, null)));
+            }
+
+            for (TestArtifact artifact : Artifacts.bfs(right)) {
+                assertTrue(edges.contains(Tuple.of(null, artifact)));
+            }
+        }
+    }
+
+    @Test
+    public void completeCoversEveryArtifact() throws Exception {
+
+        for (int candidates = 0; candidates <= 2; candidates++) {
+            for (long seed = 0; seed < 10; seed++) {
+                MergeContext context = context(1.0f, 1.0f, 0.5f, 0.5f, 0);
+                context.setSeed(Optional.of(seed));
+
+                CMMatchings<TestArtifact> preFixed = new CMMatchings<>(left, right);
+                preFixed.add(new CMMatching<>(l7, r5));
+
+                CMParameters<TestArtifact> parameters = matcher.parameters(context, 0);
+                parameters.edges = matcher.candidateEdges(left, right, preFixed, candidates);
+
+                CMMatchings<TestArtifact> completed = matcher.complete(preFixed, parameters);
+
+                assertTrue(completed.sane());
+                assertTrue(completed.contains(new CMMatching<>(l7, r5)));
+
+                for (CMMatching<TestArtifact> matching : completed) {
+                    assertTrue(parameters.edges.contains(Tuple.of(matching.m, matching.n)));
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the edges of the complete bipartite graph between the trees rooted in <code>left</code> and
+     * <code>right</code> as the <code>CostModelMatcher</code> assembled it before candidate edges were introduced.
+     */
+    private static List<Tuple<TestArtifact, TestArtifact>> completeGraph(TestArtifact left, TestArtifact right) {
+        List<TestArtifact> leftNodes = Artifacts.bfs(left);
+        List<TestArtifact> rightNodes = Artifacts.bfs(right);
+
+        leftNodes.add(null);
+        rightNodes.add(null);
+
+        List<Tuple<TestArtifact, TestArtifact>> edges = new ArrayList<>();
+
+        for (TestArtifact lNode : leftNodes) {
+            for (TestArtifact rNode : rightNodes) {
+
+                if (lNode != null && (rNode == null || lNode.categoryMatches(rNode))) {
+                    edges.add(Tuple.of(lNode, rNode));
+                } else if (rNode != null && (lNode == null || rNode.categoryMatches(lNode))) {
+                    edges.add(Tuple.of(lNode, rNode));
+                }
+            }
+        }
+
+        return edges;
+    }
+
+    /**
+     * A <code>CostModelMatcher</code> running the chain with a fixed index when only one chain is configured.
+     */
+    private static final class ChainMatcher extends CostModelMatcher<TestArtifact> {
+
+        private final int chain;
+
+        private ChainMatcher(int chain) {
+            this.chain = chain;
+        }
+
+        @Override
+        CMParameters<TestArtifact> parameters(MergeContext context, int chain) {
+            return super.parameters(context, this.chain);
+        }
+    }
+
+    /**
+     * A <code>CostModelMatcher</code> recording the acceptance probabilities of the proposed matchings and the cost
+     * bounds of the matchings after every bounding step and optionally recalculating every exact cost and cost bound
+     * instead of reusing the unaffected ones.
+     */
+    private static final class RecordingMatcher extends CostModelMatcher<TestArtifact> {
+
+        private final boolean incremental;
+        private final List<Double> acceptanceProbabilities;
+        private final List<List<Float>> bounds;
+
+        private RecordingMatcher(boolean incremental) {
+            this.incremental = incremental;
+            this.acceptanceProbabilities = new ArrayList<>();
+            this.bounds = new ArrayList<>();
+        }
+
+        @Override
+        CMParameters<TestArtifact> parameters(MergeContext context, int chain) {
+            CMParameters<TestArtifact> parameters = super.parameters(context, chain);
+            parameters.incremental = incremental;
+
+            return parameters;
+        }
+
+        @Override
+        void boundCost(CMMatchings<TestArtifact> currentMatchings, Set<TestArtifact> changed,
+                       CMParameters<TestArtifact> parameters) {
+
+            super.boundCost(currentMatchings, changed, parameters);
+
+            List<Float> step = new ArrayList<>();
+
+            for (CMMatching<TestArtifact> matching : currentMatchings) {
+                step.add(matching.getCostBounds().getLower());
+                step.add(matching.getCostBounds().getUpper());
+            }
+
+            bounds.add(step);
+        }
+
+        @Override
+        boolean chance(RandomGenerator rng, double p) {
+            acceptanceProbabilities.add(p);
+            return super.chance(rng, p);
+        }
+    }
+
+    /**
+     * Returns a <code>MergeContext</code> configuring the <code>CostModelMatcher</code> with the given weights and
+     * a fixed seed.
+     */
+    private static MergeContext context(float wr, float wn, float wa, float ws, float wo) {
         MergeContext context = new MergeContext();
 
         context.setWr(wr);
@@ -181,6 +483,11 @@ public class CostModelMatcherTest extends JDimeTest {
         context.setCmMatcherParallel(true);
         context.setCmMatcherFixRandomPercentage(true);
 
+        return context;
+    }
+
+    private void testCostModelMatching(Matchings<TestArtifact> expected, float wr, float wn, float wa, float ws, float wo) throws Exception {
+        MergeContext context = context(wr, wn, wa, ws, wo);
         Matchings<TestArtifact> actual = matcher.match(context, left, right);
 
         System.out.println("Actual cost is " + matcher.cost(context, actual, left, right));
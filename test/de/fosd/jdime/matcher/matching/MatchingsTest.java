@@ -0,0 +1,286 @@
+/**
+ * Copyright (C) 2013-2014 Olaf Lessenich
+ * Copyright (C) 2014-2017 University of Passau, Germany
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ * Contributors:
+ *     Olaf Lessenich <lessenic@fim.uni-passau.de>
+ *     Georg Seibt <seibt@fim.uni-passau.de>
+ */
+package de.fosd.jdime.matcher.matching;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import de.fosd.jdime.artifact.TestArtifact;
+import de.fosd.jdime.stats.KeyEnums;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class MatchingsTest {
+
+    private TestArtifact l1;
+    private TestArtifact l2;
+    private TestArtifact r1;
+    private TestArtifact r2;
+
+    @Before
+    public void setUp() throws Exception {
+        l1 = new TestArtifact("a", KeyEnums.Type.NODE);
+        l2 = new TestArtifact("b", KeyEnums.Type.NODE);
+        r1 = new TestArtifact("a", KeyEnums.Type.NODE);
+        r2 = new TestArtifact("b", KeyEnums.Type.NODE);
+    }
+
+    @Test
+    public void lookups() throws Exception {
+        Matchings<TestArtifact> matchings = new Matchings<>();
+        Matching<TestArtifact> m1 = new Matching<>(l1, r1, 1);
+        Matching<TestArtifact> m2 = new Matching<>(l2, r2, 1);
+
+        matchings.add(m1);
+
+        assertSame(m1, matchings.get(l1, r1).get());
+        assertSame(m1, matchings.get(r1, l1).get());
+        assertSame(m1, matchings.getLeft(l1).get());
+        assertSame(m1, matchings.getRight(r1).get());
+        assertFalse(matchings.get(l2, r2).isPresent());
+
+        matchings.add(m2);
+
+        assertSame(m2, matchings.get(l2, r2).get());
+        assertSame(m2, matchings.getLeft(l2).get());
+        assertSame(m2, matchings.getRight(r2).get());
+        assertSame(r2, matchings.queryRightByLeftId(l2.getId()).get());
+    }
+
+    @Test
+    public void modifications() throws Exception {
+        Matchings<TestArtifact> matchings = new Matchings<>();
+        Matching<TestArtifact> m1 = new Matching<>(l1, r1, 1);
+        Matching<TestArtifact> m2 = new Matching<>(l2, r2, 1);
+
+        matchings.add(m1);
+        matchings.add(m2);
+        assertTrue(matchings.getLeft(l1).isPresent());
+
+        matchings.remove(m1);
+        assertFalse(matchings.get(l1, r1).isPresent());
+        assertFalse(matchings.getLeft(l1).isPresent());
+        assertFalse(matchings.getRight(r1).isPresent());
+
+        matchings.removeIf(m -> m.getLeft() == l2);
+        assertFalse(matchings.getLeft(l2).isPresent());
+        assertEquals(0, matchings.size());
+
+        matchings.add(m1);
+        assertSame(m1, matchings.getRight(r1).get());
+
+        matchings.clear();
+        assertFalse(matchings.getRight(r1).isPresent());
+    }
+
+    @Test
+    public void segments() throws Exception {
+        Matchings<TestArtifact> child = Matchings.of(l2, r2, 1);
+        Matchings<TestArtifact> parent = Matchings.of(l1, r1, 2);
+
+        parent.addMatchings(child);
+
+        assertTrue(parent.get(l1, r1).isPresent());
+        assertTrue(parent.get(l2, r2).isPresent());
+        assertTrue(parent.getRight(r2).isPresent());
+        assertEquals(2, parent.size());
+        assertEquals(1, child.size());
+
+        Matchings<TestArtifact> shared = new Matchings<>();
+        shared.addAllMatchings(Arrays.asList(parent, Matchings.of(l2, r2, 1)));
+        shared.flatten();
+
+        assertEquals(2, shared.size());
+        assertTrue(shared.contains(new Matching<>(l1, r1, 0)));
+
+        shared.remove(new Matching<>(l2, r2, 0));
+        assertFalse(shared.getLeft(l2).isPresent());
+        assertEquals(2, parent.size());
+    }
+
+    @Test
+    public void duplicatePrecedence() throws Exception {
+        Matchings<TestArtifact> segment = Matchings.of(l1, r1, 1);
+
+        // a Matching from a segment takes precedence over an equal one added later, just as with addAll
+        Matchings<TestArtifact> shared = new Matchings<>();
+        shared.addMatchings(segment);
+
+        assertFalse(shared.add(new Matching<>(l1, r1, 5)));
+        assertTrue(shared.add(new Matching<>(l2, r2, 5)));
+        assertEquals(2, shared.size());
+        assertEquals(1, (int) shared.getScore(l1, r1).get());
+
+        Matchings<TestArtifact> copied = new Matchings<>();
+        copied.addAll(segment);
+
+        assertFalse(copied.add(new Matching<>(l1, r1, 5)));
+        assertEquals(1, (int) copied.getScore(l1, r1).get());
+
+        // own Matchings added before the segment take precedence over it
+        Matchings<TestArtifact> own = Matchings.of(l1, r1, 3);
+        own.addMatchings(segment);
+
+        assertEquals(1, own.size());
+        assertEquals(3, (int) own.getScore(l1, r1).get());
+        assertEquals(1, (int) segment.getScore(l1, r1).get());
+    }
+
+    @Test
+    public void optimizedWithoutConflicts() throws Exception {
+        Matchings<TestArtifact> matchings = new Matchings<>();
+        matchings.add(new Matching<>(l1, r1, 1));
+        matchings.add(new Matching<>(l2, r2, 1));
+        matchings.add(new Matching<>(l1, r2, 0));
+
+        Matchings<TestArtifact> optimized = matchings.optimized();
+
+        assertEquals(2, optimized.size());
+        assertFalse(optimized.get(l1, r2).isPresent());
+        assertEquals(matchings.resolveConflicts(), optimized);
+    }
+
+    @Test
+    public void optimizedWithConflicts() throws Exception {
+        Matchings<TestArtifact> overlapping = new Matchings<>();
+        overlapping.add(new Matching<>(l1, r1, 2));
+        overlapping.add(new Matching<>(l1, r2, 1));
+
+        assertEquals(overlapping.resolveConflicts(), overlapping.optimized());
+        assertEquals(1, overlapping.optimized().size());
+
+        // the conflict is only found after other Matchings were accepted
+        Matchings<TestArtifact> conflicting = new Matchings<>();
+        conflicting.add(new Matching<>(l1, r1, 1));
+        conflicting.add(new Matching<>(l2, r2, 1));
+        conflicting.add(new Matching<>(r1, l2, 2));
+
+        assertEquals(conflicting.resolveConflicts(), conflicting.optimized());
+    }
+
+    @Test
+    public void optimizedAgreesWithResolveConflicts() throws Exception {
+        Random random = new Random(42);
+
+        for (int round = 0; round < 200; round++) {
+            List<TestArtifact> lefts = new ArrayList<>();
+            List<TestArtifact> rights = new ArrayList<>();
+
+            for (int i = 0; i < 6; i++) {
+                lefts.add(new TestArtifact("l" + i, KeyEnums.Type.NODE));
+                rights.add(new TestArtifact("r" + i, KeyEnums.Type.NODE));
+            }
+
+            Matchings<TestArtifact> matchings = new Matchings<>();
+            int size = random.nextInt(12);
+
+            for (int i = 0; i < size; i++) {
+                TestArtifact left = lefts.get(random.nextInt(lefts.size()));
+                TestArtifact right = rights.get(random.nextInt(rights.size()));
+
+                matchings.add(new Matching<>(left, right, random.nextInt(4)));
+            }
+
+            assertEquals(matchings.resolveConflicts(), matchings.optimized());
+        }
+    }
+
+    @Test
+    public void concurrentFlatten() throws Exception {
+        int width = 50;
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        try {
+            for (int round = 0; round < 50; round++) {
+                List<TestArtifact> lefts = new ArrayList<>();
+                List<TestArtifact> rights = new ArrayList<>();
+
+                // a shared leaf segment referenced by every middle segment
+                TestArtifact sharedLeft = new TestArtifact("s", KeyEnums.Type.NODE);
+                TestArtifact sharedRight = new TestArtifact("s", KeyEnums.Type.NODE);
+                Matchings<TestArtifact> leaf = Matchings.of(sharedLeft, sharedRight, 1);
+
+                Matchings<TestArtifact> root = new Matchings<>();
+                List<Matchings<TestArtifact>> middles = new ArrayList<>();
+
+                for (int i = 0; i < width; i++) {
+                    TestArtifact l = new TestArtifact("l" + i, KeyEnums.Type.NODE);
+                    TestArtifact r = new TestArtifact("r" + i, KeyEnums.Type.NODE);
+                    Matchings<TestArtifact> middle = Matchings.of(l, r, 1);
+
+                    middle.addMatchings(leaf);
+                    root.addMatchings(middle);
+
+                    lefts.add(l);
+                    rights.add(r);
+                    middles.add(middle);
+                }
+
+                // the instances are now shared, every task implicitly flattens or indexes some of them
+                List<Future<?>> tasks = new ArrayList<>();
+
+                for (int t = 0; t < 8; t++) {
+                    int task = t;
+
+                    tasks.add(executor.submit(() -> {
+                        for (int i = 0; i < width; i++) {
+                            int j = (i + task * 7) % width;
+
+                            assertTrue(root.get(lefts.get(j), rights.get(j)).isPresent());
+                            assertTrue(middles.get(j).getLeft(sharedLeft).isPresent());
+                            assertEquals(2, middles.get(j).size());
+                            assertNotNull(root.getRight(rights.get(j)).orElse(null));
+                        }
+
+                        int count = 0;
+
+                        for (Matching<TestArtifact> ignored : root) {
+                            count++;
+                        }
+
+                        assertEquals(width + 1, count);
+                        assertEquals(width + 1, root.size());
+                    }));
+                }
+
+                for (Future<?> f : tasks) {
+                    f.get();
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
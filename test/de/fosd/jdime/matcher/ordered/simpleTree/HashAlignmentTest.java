@@ -0,0 +1,193 @@
+/**
+ * Copyright (C) 2013-2014 Olaf Lessenich
+ * Copyright (C) 2014-2017 University of Passau, Germany
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ * Contributors:
+ *     Olaf Lessenich <lessenic@fim.uni-passau.de>
+ *     Georg Seibt <seibt@fim.uni-passau.de>
+ */
+package de.fosd.jdime.matcher.ordered.simpleTree;
+
+import java.util.Random;
+
+import de.fosd.jdime.artifact.TestArtifact;
+import de.fosd.jdime.artifact.TreeHash;
+import de.fosd.jdime.stats.KeyEnums;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the <code>HashAlignment</code> class.
+ */
+public class HashAlignmentTest {
+
+    @Test
+    public void emptySequences() throws Exception {
+        assertArrayEquals(new int[] {}, HashAlignment.align(hashes(), hashes()));
+        assertArrayEquals(new int[] {}, HashAlignment.align(hashes(), hashes("a", "b")));
+        assertArrayEquals(new int[] {-1, -1}, HashAlignment.align(hashes("a", "b"), hashes()));
+    }
+
+    @Test
+    public void identicalSequences() throws Exception {
+        String[] labels = {"a", "b", "a", "c", "b", "a"};
+
+        assertArrayEquals(new int[] {0, 1, 2, 3, 4, 5}, HashAlignment.align(hashes(labels), hashes(labels)));
+    }
+
+    @Test
+    public void disjointSequences() throws Exception {
+        assertArrayEquals(new int[] {-1, -1, -1}, HashAlignment.align(hashes("a", "b", "a"), hashes("c", "d")));
+    }
+
+    @Test
+    public void largeDisjointSequences() throws Exception {
+        int size = 6000;
+        TreeHash[] left = new TreeHash[size];
+        TreeHash[] right = new TreeHash[size];
+
+        for (int i = 0; i < size; i++) {
+            left[i] = hash("l" + i);
+            right[i] = hash("r" + i);
+        }
+
+        for (int j : HashAlignment.align(left, right)) {
+            assertEquals(-1, j);
+        }
+    }
+
+    @Test
+    public void anchors() throws Exception {
+        assertArrayEquals(new int[] {0, -1, 2}, HashAlignment.align(hashes("a", "x", "b"), hashes("a", "y", "b")));
+
+        // the unique hashes "a" and "b" are crossed, only one of them can be an anchor
+        assertArrayEquals(new int[] {-1, 0}, HashAlignment.align(hashes("a", "b"), hashes("b", "a")));
+    }
+
+    @Test
+    public void gapsBetweenAnchors() throws Exception {
+        assertArrayEquals(new int[] {0, 1, -1, 2},
+                HashAlignment.align(hashes("u", "d", "d", "v"), hashes("u", "d", "v")));
+        assertArrayEquals(new int[] {0, -1, 1, 2, 5},
+                HashAlignment.align(hashes("u", "d", "e", "d", "v"), hashes("u", "e", "d", "d", "x", "v")));
+    }
+
+    @Test
+    public void gapsAreAlignedOptimally() throws Exception {
+        Random random = new Random(42);
+
+        for (int round = 0; round < 500; round++) {
+
+            /*
+             * Every label occurs at least twice so that there are no anchors and the whole sequences are aligned by
+             * the algorithm by Myers, which must find a longest common subsequence.
+             */
+            String[] left = duplicatedLabels(random, random.nextInt(20));
+            String[] right = duplicatedLabels(random, random.nextInt(20));
+            int[] aligned = HashAlignment.align(hashes(left), hashes(right));
+            int length = 0;
+            int last = -1;
+
+            for (int i = 0; i < aligned.length; i++) {
+
+                if (aligned[i] >= 0) {
+                    assertTrue(aligned[i] > last);
+                    assertEquals(left[i], right[aligned[i]]);
+
+                    last = aligned[i];
+                    length++;
+                }
+            }
+
+            assertEquals(lcsLength(left, right), length);
+        }
+    }
+
+    /**
+     * Returns a random sequence of labels from a small alphabet in which every label occurs at least twice.
+     *
+     * @param random
+     *         the source of randomness
+     * @param pairs
+     *         the number of random labels to duplicate
+     * @return the labels
+     */
+    private static String[] duplicatedLabels(Random random, int pairs) {
+        String[] labels = new String[2 * pairs];
+
+        for (int i = 0; i < pairs; i++) {
+            String label = String.valueOf((char) ('a' + random.nextInt(4)));
+
+            labels[2 * i] = label;
+            labels[2 * i + 1] = label;
+        }
+
+        for (int i = labels.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            String tmp = labels[i];
+
+            labels[i] = labels[j];
+            labels[j] = tmp;
+        }
+
+        return labels;
+    }
+
+    /**
+     * Computes the length of a longest common subsequence of the given sequences using the quadratic DP.
+     *
+     * @param left
+     *         the left sequence
+     * @param right
+     *         the right sequence
+     * @return the length of a longest common subsequence
+     */
+    private static int lcsLength(String[] left, String[] right) {
+        int[][] lcs = new int[left.length + 1][right.length + 1];
+
+        for (int i = 1; i <= left.length; i++) {
+            for (int j = 1; j <= right.length; j++) {
+
+                if (left[i - 1].equals(right[j - 1])) {
+                    lcs[i][j] = lcs[i - 1][j - 1] + 1;
+                } else {
+                    lcs[i][j] = Math.max(lcs[i - 1][j], lcs[i][j - 1]);
+                }
+            }
+        }
+
+        return lcs[left.length][right.length];
+    }
+
+    private static TreeHash[] hashes(String... labels) {
+        TreeHash[] hashes = new TreeHash[labels.length];
+
+        for (int i = 0; i < labels.length; i++) {
+            hashes[i] = hash(labels[i]);
+        }
+
+        return hashes;
+    }
+
+    private static TreeHash hash(String label) {
+        return new TestArtifact(label, KeyEnums.Type.NODE).getTreeHash();
+    }
+}
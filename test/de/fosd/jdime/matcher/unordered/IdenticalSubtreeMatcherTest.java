@@ -0,0 +1,141 @@
+/**
+ * Copyright (C) 2013-2014 Olaf Lessenich
+ * Copyright (C) 2014-2017 University of Passau, Germany
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ * Contributors:
+ *     Olaf Lessenich <lessenic@fim.uni-passau.de>
+ *     Georg Seibt <seibt@fim.uni-passau.de>
+ */
+package de.fosd.jdime.matcher.unordered;
+
+import de.fosd.jdime.artifact.TestArtifact;
+import de.fosd.jdime.config.merge.MergeContext;
+import de.fosd.jdime.config.merge.Revision;
+import de.fosd.jdime.matcher.matching.Matchings;
+import de.fosd.jdime.stats.KeyEnums;
+import org.junit.Test;
+
+import static de.fosd.jdime.config.merge.MergeScenario.LEFT;
+import static de.fosd.jdime.config.merge.MergeScenario.RIGHT;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the <code>IdenticalSubtreeMatcher</code> class.
+ */
+public class IdenticalSubtreeMatcherTest {
+
+    @Test
+    public void uniqueSubtreesArePaired() throws Exception {
+        TestArtifact leftA = tree(LEFT, "A", tree(LEFT, "b"));
+        TestArtifact rightA = tree(RIGHT, "A", tree(RIGHT, "b"));
+        TestArtifact left = tree(LEFT, "Class", leftA, tree(LEFT, "x"));
+        TestArtifact right = tree(RIGHT, "Class", tree(RIGHT, "y"), rightA);
+
+        IdenticalSubtreeMatcher<TestArtifact> matcher = new IdenticalSubtreeMatcher<>();
+        matcher.matchTrees(left, right);
+
+        assertTrue(matcher.hasMatched(leftA, rightA));
+        assertTrue(matcher.hasMatched(leftA.getChild(0), rightA.getChild(0)));
+        assertFalse(matcher.hasMatched(left, right));
+
+        Matchings<TestArtifact> matchings = matcher.match(new MergeContext(), leftA, rightA);
+
+        assertEquals(2, matchings.size());
+        assertEquals(2, matchings.getScore(leftA, rightA).orElse(0).intValue());
+    }
+
+    @Test
+    public void identicalSiblingsArePairedByPosition() throws Exception {
+        TestArtifact[] leftA = {tree(LEFT, "A", tree(LEFT, "b"), tree(LEFT, "c")),
+                                tree(LEFT, "A", tree(LEFT, "b"), tree(LEFT, "c"))};
+        TestArtifact[] rightA = {tree(RIGHT, "A", tree(RIGHT, "b"), tree(RIGHT, "c")),
+                                 tree(RIGHT, "A", tree(RIGHT, "b"), tree(RIGHT, "c"))};
+
+        TestArtifact left = tree(LEFT, "Class", leftA[0], tree(LEFT, "x"), leftA[1]);
+        TestArtifact right = tree(RIGHT, "Class", rightA[0], rightA[1], tree(RIGHT, "y"));
+
+        IdenticalSubtreeMatcher<TestArtifact> matcher = new IdenticalSubtreeMatcher<>();
+        matcher.matchTrees(left, right);
+
+        for (int i = 0; i < leftA.length; i++) {
+
+            for (int j = 0; j < rightA.length; j++) {
+                assertEquals(i == j, matcher.hasMatched(leftA[i], rightA[j]));
+                assertEquals(i == j, matcher.hasMatched(leftA[i].getChild(1), rightA[j].getChild(1)));
+            }
+        }
+    }
+
+    @Test
+    public void identicalSubtreesArePairedByParent() throws Exception {
+        TestArtifact leftP = tree(LEFT, "P", tree(LEFT, "A", tree(LEFT, "b")));
+        TestArtifact leftQ = tree(LEFT, "Q", tree(LEFT, "A", tree(LEFT, "b")));
+        TestArtifact rightQ = tree(RIGHT, "Q", tree(RIGHT, "A", tree(RIGHT, "b")), tree(RIGHT, "z"));
+        TestArtifact rightP = tree(RIGHT, "P", tree(RIGHT, "A", tree(RIGHT, "b")), tree(RIGHT, "z"));
+
+        TestArtifact left = tree(LEFT, "Class", leftP, leftQ);
+        TestArtifact right = tree(RIGHT, "Class", rightQ, rightP);
+
+        IdenticalSubtreeMatcher<TestArtifact> matcher = new IdenticalSubtreeMatcher<>();
+        matcher.matchTrees(left, right);
+
+        assertTrue(matcher.hasMatched(leftP.getChild(0), rightP.getChild(0)));
+        assertTrue(matcher.hasMatched(leftQ.getChild(0), rightQ.getChild(0)));
+        assertFalse(matcher.hasMatched(leftP.getChild(0), rightQ.getChild(0)));
+        assertFalse(matcher.hasMatched(leftQ.getChild(0), rightP.getChild(0)));
+    }
+
+    @Test
+    public void ambiguousSubtreesMatchAnyUnpairedOne() throws Exception {
+        TestArtifact leftA = tree(LEFT, "A", tree(LEFT, "b"));
+        TestArtifact[] rightA = {tree(RIGHT, "A", tree(RIGHT, "b")), tree(RIGHT, "A", tree(RIGHT, "b"))};
+
+        TestArtifact left = tree(LEFT, "Class", tree(LEFT, "P", leftA, tree(LEFT, "c")));
+        TestArtifact right = tree(RIGHT, "Class", tree(RIGHT, "P", rightA[0], tree(RIGHT, "d")),
+                                                  tree(RIGHT, "P", rightA[1], tree(RIGHT, "e")));
+
+        IdenticalSubtreeMatcher<TestArtifact> matcher = new IdenticalSubtreeMatcher<>();
+        matcher.matchTrees(left, right);
+
+        assertTrue(matcher.hasMatched(leftA, rightA[0]));
+        assertTrue(matcher.hasMatched(leftA, rightA[1]));
+    }
+
+    /**
+     * Returns a new node of the type <code>NODE</code> having the given <code>children</code>.
+     *
+     * @param revision
+     *         the revision of the nodes
+     * @param label
+     *         the label of the node
+     * @param children
+     *         the children of the node
+     * @return the new node
+     */
+    private static TestArtifact tree(Revision revision, String label, TestArtifact... children) {
+        TestArtifact node = new TestArtifact(revision, label, KeyEnums.Type.NODE);
+
+        for (TestArtifact child : children) {
+            node.addChild(child);
+        }
+
+        return node;
+    }
+}
@@ -0,0 +1,111 @@
+/**
+ * Copyright (C) 2013-2014 Olaf Lessenich
+ * Copyright (C) 2014-2017 University of Passau, Germany
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ *
+ * Contributors:
+ *     Olaf Lessenich <lessenic@fim.uni-passau.de>
+ *     Georg Seibt <seibt@fim.uni-passau.de>
+ */
+package de.fosd.jdime.matcher.unordered.assignmentProblem;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class ShortestAugmentingPathAlgorithmTest {
+
+    @Test
+    public void square() throws Exception {
+        int[][] scores = {
+                {1, 5, 0},
+                {4, 6, 0},
+                {0, 0, 2}
+        };
+
+        assertArrayEquals(new int[] {1, 0, 2}, new ShortestAugmentingPathAlgorithm(scores).execute());
+    }
+
+    @Test
+    public void rectangular() throws Exception {
+        int[][] wide = {
+                {3, 0, 1, 7}
+        };
+        int[][] tall = {
+                {3},
+                {0},
+                {7},
+                {1}
+        };
+
+        assertArrayEquals(new int[] {3}, new ShortestAugmentingPathAlgorithm(wide).execute());
+        assertArrayEquals(new int[] {-1, -1, 0, -1}, new ShortestAugmentingPathAlgorithm(tall).execute());
+    }
+
+    @Test
+    public void sameScoreAsHungarian() throws Exception {
+        Random random = new Random(42);
+
+        for (int run = 0; run < 200; run++) {
+            int m = 1 + random.nextInt(12);
+            int n = 1 + random.nextInt(12);
+            int[][] scores = new int[m][n];
+            int[][] costs = new int[m][n];
+            int max = 10;
+
+            for (int i = 0; i < m; i++) {
+                for (int j = 0; j < n; j++) {
+                    scores[i][j] = random.nextInt(3) == 0 ? random.nextInt(max + 1) : 0;
+                    costs[i][j] = max - scores[i][j];
+                }
+            }
+
+            int[] expected = new HungarianAlgorithm(costs).execute();
+            int[] actual = new ShortestAugmentingPathAlgorithm(scores).execute();
+
+            assertEquals(score(scores, expected), score(scores, actual));
+        }
+    }
+
+    /**
+     * Returns the sum of the scores of the cells in the given assignment. Fails if a column is assigned twice.
+     *
+     * @param scores
+     *         the scores
+     * @param assignment
+     *         the assignment of rows to columns
+     * @return the score of the assignment
+     */
+    private static int score(int[][] scores, int[] assignment) {
+        boolean[] used = new boolean[scores[0].length];
+        int score = 0;
+
+        for (int i = 0; i < assignment.length; i++) {
+            if (assignment[i] >= 0) {
+                assertFalse(used[assignment[i]]);
+                used[assignment[i]] = true;
+                score += scores[i][assignment[i]];
+            }
+        }
+
+        return score;
+    }
+}